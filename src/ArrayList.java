@@ -1,11 +1,45 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
 public class ArrayList implements List {
+    private static final Metrics.Scope METRICS = Metrics.scope("ArrayList");
+    private static final Metrics.Histogram ADD = METRICS.histogram("add");
+    private static final Metrics.Histogram INSERT = METRICS.histogram("add(pos)");
+    private static final Metrics.Histogram DELETE = METRICS.histogram("delete");
+    private static final Metrics.Histogram ADD_ALL = METRICS.histogram("addAll");
+    private static final Metrics.Histogram REMOVE_RANGE = METRICS.histogram("removeRange");
+
+    // Some VMs reserve header words in an array, so this is the largest safe length.
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    public static final double DEFAULT_GROWTH_FACTOR = 2.0;
 
     private int numElements;
     private int[] array;
+    private final double growthFactor;
 
     public ArrayList() {
+        this(1);
+    }
+
+    public ArrayList(int initialCapacity) {
+        this(initialCapacity, DEFAULT_GROWTH_FACTOR);
+    }
+
+    /**
+     * @param initialCapacity  number of elements that fit before the first resize
+     * @param growthFactor     the capacity is multiplied by this when the array is full;
+     *                         2 wastes up to half of the array, 1.5 up to a third but
+     *                         copies more often
+     */
+    public ArrayList(int initialCapacity, double growthFactor) {
+        if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY) throw new IllegalArgumentException("illegal capacity " + initialCapacity);
+        if (!(growthFactor > 1)) throw new IllegalArgumentException("growth factor must be greater than 1");
         this.numElements = 0;
-        this.array = new int[1];
+        this.array = new int[initialCapacity];
+        this.growthFactor = growthFactor;
     }
 
     public boolean isEmpty() {
@@ -16,53 +50,263 @@ public class ArrayList implements List {
         return (pos < 0 || pos >= numElements);
     }
 
-    private int[] resize(int[] array) {
-        int[] newArray = new int[2*array.length];
-        for (int i = 0; i < array.length; i++) {
-            newArray[i] = array[i];
+    public int capacity() {
+        return array.length;
+    }
+
+    /** Capacity after growing until at least minCapacity elements fit. */
+    private int grownCapacity(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY) throw new OutOfMemoryError("list would exceed " + MAX_CAPACITY + " elements");
+        long grown = Math.max((long) (array.length * growthFactor), array.length + 1L);
+        return (int) Math.max(minCapacity, Math.min(grown, MAX_CAPACITY));
+    }
+
+    private void reallocate(int capacity) {
+        array = Arrays.copyOf(array, capacity);
+        if (Metrics.ENABLED) {
+            METRICS.count(Metrics.Event.RESIZES);
+            METRICS.count(Metrics.Event.ALLOCATIONS);
+            METRICS.count(Metrics.Event.MOVES, numElements);
+        }
+    }
+
+    /** Grows the array, if needed, so that minCapacity elements fit without another resize. */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > array.length) reallocate(grownCapacity(minCapacity));
+    }
+
+    /** Shrinks the array to the number of elements. */
+    public void trimToSize() {
+        if (numElements < array.length) reallocate(numElements);
+    }
+
+    /**
+     * Makes room for count elements at pos and increases numElements. If the array
+     * has to grow, the elements before and after the gap are copied into the new
+     * array directly, so no element moves twice.
+     */
+    private void openGap(int pos, int count) {
+        int newSize = numElements + count;
+        if (newSize < 0 || newSize > array.length) {
+            int[] newArray = new int[grownCapacity(newSize)];
+            System.arraycopy(array, 0, newArray, 0, pos);
+            System.arraycopy(array, pos, newArray, pos + count, numElements - pos);
+            array = newArray;
+            if (Metrics.ENABLED) {
+                METRICS.count(Metrics.Event.RESIZES);
+                METRICS.count(Metrics.Event.ALLOCATIONS);
+                METRICS.count(Metrics.Event.MOVES, numElements);
+            }
+        } else {
+            System.arraycopy(array, pos, array, pos + count, numElements - pos);
+            if (Metrics.ENABLED) METRICS.count(Metrics.Event.MOVES, numElements - pos);
+        }
+        numElements = newSize;
+    }
+
+    /**
+     * Removes the elements in [from, to). Once fewer than a quarter of the array is
+     * used, the array is halved, and the elements after the range are copied
+     * straight to their new place in the smaller array.
+     */
+    private void closeGap(int from, int to) {
+        int newSize = numElements - (to - from);
+        int capacity = array.length;
+        while (newSize < capacity / 4) capacity /= 2;
+        if (capacity < array.length) {
+            int[] newArray = new int[capacity];
+            System.arraycopy(array, 0, newArray, 0, from);
+            System.arraycopy(array, to, newArray, from, numElements - to);
+            array = newArray;
+            if (Metrics.ENABLED) {
+                METRICS.count(Metrics.Event.RESIZES);
+                METRICS.count(Metrics.Event.ALLOCATIONS);
+                METRICS.count(Metrics.Event.MOVES, newSize);
+            }
+        } else {
+            System.arraycopy(array, to, array, from, numElements - to);
+            if (Metrics.ENABLED) METRICS.count(Metrics.Event.MOVES, numElements - to);
         }
-        return newArray;
+        numElements = newSize;
     }
 
     public void add(int element) {
-        if (numElements == array.length) array = resize(array);
+        long start = Metrics.start();
+        if (numElements == array.length) reallocate(grownCapacity(numElements + 1));
         array[numElements] = element;
         numElements++;
+        if (Metrics.ENABLED) {
+            METRICS.count(Metrics.Event.WRITES);
+            ADD.record(start);
+        }
     }
 
     public void add(int pos, int element) {
         if (pos < 0 || pos > numElements) {
             throw new IndexOutOfBoundsException();
         }
-        if (numElements == array.length) array = resize(array);
-        for (int i = numElements; i > pos; i--) {
-            array[i] = array[i-1];
-        }
+        long start = Metrics.start();
+        openGap(pos, 1);
         array[pos] = element;
-        numElements++;
+        if (Metrics.ENABLED) {
+            METRICS.count(Metrics.Event.WRITES);
+            INSERT.record(start);
+        }
     }
 
-    public void delete(int pos) {
-        if (isEmpty() || posOutOfBounds(pos)) throw new IndexOutOfBoundsException();
-        if (numElements < array.length / 4) {
-            int[] newArray = new int[array.length/2];
-            for (int i = 0; i < numElements; i++) {
-                newArray[i] = array[i];
-            }
-            array = newArray;
+    /** Appends all elements, growing the array at most once. */
+    public void addAll(int[] elements) {
+        addAll(numElements, elements);
+    }
+
+    /** Inserts all elements before pos, shifting the tail of the list only once. */
+    public void addAll(int pos, int[] elements) {
+        if (pos < 0 || pos > numElements) {
+            throw new IndexOutOfBoundsException();
         }
-        for (int i = pos; i < numElements-1; i++) {
-            array[i] = array[i+1];
+        long start = Metrics.start();
+        openGap(pos, elements.length);
+        System.arraycopy(elements, 0, array, pos, elements.length);
+        if (Metrics.ENABLED) {
+            METRICS.count(Metrics.Event.WRITES, elements.length);
+            ADD_ALL.record(start);
         }
-        numElements--;
+    }
+
+    public void delete(int pos) {
+        if (isEmpty() || posOutOfBounds(pos)) throw new IndexOutOfBoundsException();
+        long start = Metrics.start();
+        closeGap(pos, pos + 1);
+        if (Metrics.ENABLED) DELETE.record(start);
+    }
+
+    /** Removes the elements from position from (inclusive) to position to (exclusive). */
+    public void removeRange(int from, int to) {
+        if (from < 0 || to > numElements || from > to) throw new IndexOutOfBoundsException();
+        long start = Metrics.start();
+        closeGap(from, to);
+        if (Metrics.ENABLED) REMOVE_RANGE.record(start);
     }
 
     public int get(int pos) {
         if (isEmpty() || posOutOfBounds(pos)) throw new IndexOutOfBoundsException();
+        if (Metrics.ENABLED) METRICS.count(Metrics.Event.READS);
         return array[pos];
     }
-    
+
+    /**
+     * Copies the elements into target if they fit, otherwise into a new array of
+     * exactly size() elements, and returns that array.
+     */
+    public int[] toArray(int[] target) {
+        if (Metrics.ENABLED) METRICS.count(Metrics.Event.READS, numElements);
+        if (target == null || target.length < numElements) return Arrays.copyOf(array, numElements);
+        System.arraycopy(array, 0, target, 0, numElements);
+        return target;
+    }
+
     public int size() {
         return numElements;
     }
+
+    public ListIterator listIterator(int pos) {
+        if (pos < 0 || pos > numElements) throw new IndexOutOfBoundsException(pos);
+        return new ListIterator() {
+            private int cursor = pos;
+            private int lastReturned = -1;
+
+            public boolean hasNext() {
+                return cursor < numElements;
+            }
+
+            public int nextInt() {
+                if (cursor >= numElements) throw new NoSuchElementException();
+                if (Metrics.ENABLED) METRICS.count(Metrics.Event.READS);
+                lastReturned = cursor++;
+                return array[lastReturned];
+            }
+
+            public int nextIndex() {
+                return cursor;
+            }
+
+            public void add(int element) {
+                ArrayList.this.add(cursor++, element);
+                lastReturned = -1;
+            }
+
+            public void remove() {
+                if (lastReturned < 0) throw new IllegalStateException();
+                delete(lastReturned);
+                cursor = lastReturned;
+                lastReturned = -1;
+            }
+
+            public void set(int element) {
+                if (lastReturned < 0) throw new IllegalStateException();
+                array[lastReturned] = element;
+                if (Metrics.ENABLED) METRICS.count(Metrics.Event.WRITES);
+            }
+        };
+    }
+
+    public void forEach(IntConsumer action) {
+        if (Metrics.ENABLED) METRICS.count(Metrics.Event.READS, numElements);
+        for (int i = 0; i < numElements; i++) action.accept(array[i]);
+    }
+
+    public IntStream stream() {
+        if (Metrics.ENABLED) METRICS.count(Metrics.Event.READS, numElements);
+        return Arrays.stream(array, 0, numElements);
+    }
+
+    public int indexOf(int element) {
+        for (int i = 0; i < numElements; i++) {
+            if (array[i] == element) {
+                if (Metrics.ENABLED) METRICS.count(Metrics.Event.READS, i + 1);
+                return i;
+            }
+        }
+        if (Metrics.ENABLED) METRICS.count(Metrics.Event.READS, numElements);
+        return -1;
+    }
+
+    /** Removes all elements but keeps the capacity; see trimToSize(). */
+    public void clear() {
+        numElements = 0;
+    }
+
+    /**
+     * Compacts the kept elements towards the front in a single pass, instead of
+     * shifting the tail once per removed element. The filter is run over all elements
+     * first, with the positions to remove marked in a bit set, so if it throws the
+     * list is left unchanged.
+     */
+    public int removeIf(IntPredicate filter) {
+        int first = 0;
+        while (first < numElements && !filter.test(array[first])) first++;
+        if (Metrics.ENABLED) METRICS.count(Metrics.Event.READS, Math.min(first + 1, numElements));
+        if (first == numElements) return 0;
+
+        long[] removedBits = new long[((numElements - first) >> 6) + 1]; // bit i is position first + i
+        removedBits[0] = 1L;
+        int removed = 1;
+        for (int i = first + 1; i < numElements; i++) {
+            if (filter.test(array[i])) {
+                removedBits[(i - first) >> 6] |= 1L << (i - first);
+                removed++;
+            }
+        }
+        int kept = first;
+        for (int i = first + 1; i < numElements; i++) {
+            if ((removedBits[(i - first) >> 6] & (1L << (i - first))) == 0) array[kept++] = array[i];
+        }
+        if (Metrics.ENABLED) {
+            METRICS.count(Metrics.Event.ALLOCATIONS);
+            METRICS.count(Metrics.Event.READS, numElements - first - 1);
+            METRICS.count(Metrics.Event.WRITES, kept - first);
+        }
+        closeGap(kept, numElements);
+        return removed;
+    }
 }
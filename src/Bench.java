@@ -0,0 +1,117 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Minimal timing harness for the benchmark classes. Every measurement runs a
+ * warmup phase first so the JIT has compiled the code under test, then reports
+ * the mean time, the bytes allocated by the calling thread per operation and the
+ * garbage collections (count and time, summed over all collectors) per operation.
+ */
+public class Bench {
+
+    /** Prepares the input for one run; its cost is excluded from the measurement. */
+    public interface Setup {
+        void run();
+    }
+
+    /** The code under test. The returned value is consumed so it can't be optimized away. */
+    public interface Task {
+        long run();
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile long sink;
+
+    public static final int DEFAULT_WARMUP = 5;
+    public static final int DEFAULT_ITERATIONS = 10;
+
+    public static class Result {
+        public final String name;
+        public final double nanosPerOp;
+        public final long bytesPerOp;
+        public final double gcsPerOp;
+        public final double gcMillisPerOp;
+
+        Result(String name, double nanosPerOp, long bytesPerOp, double gcsPerOp, double gcMillisPerOp) {
+            this.name = name;
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+            this.gcsPerOp = gcsPerOp;
+            this.gcMillisPerOp = gcMillisPerOp;
+        }
+
+        @Override
+        public String toString() {
+            String line = String.format("%-50s %14.3f ms/op %16d B/op", name, nanosPerOp / 1e6, bytesPerOp);
+            if (gcsPerOp > 0) line += String.format(" %8.2f gc/op %8.3f gc-ms/op", gcsPerOp, gcMillisPerOp);
+            return line;
+        }
+    }
+
+    public static Result run(String name, Task task) {
+        return run(name, DEFAULT_WARMUP, DEFAULT_ITERATIONS, () -> {}, task);
+    }
+
+    public static Result run(String name, Setup setup, Task task) {
+        return run(name, DEFAULT_WARMUP, DEFAULT_ITERATIONS, setup, task);
+    }
+
+    public static Result run(String name, int warmup, int iterations, Setup setup, Task task) {
+        for (int i = 0; i < warmup; i++) {
+            setup.run();
+            sink += task.run();
+        }
+
+        long totalNanos = 0;
+        long totalBytes = 0;
+        long totalGcs = 0;
+        long totalGcMillis = 0;
+        for (int i = 0; i < iterations; i++) {
+            setup.run();
+            long gcsBefore = gcCount();
+            long gcMillisBefore = gcMillis();
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            sink += task.run();
+            totalNanos += System.nanoTime() - start;
+            totalBytes += allocatedBytes() - bytesBefore;
+            totalGcs += gcCount() - gcsBefore;
+            totalGcMillis += gcMillis() - gcMillisBefore;
+        }
+
+        Result result = new Result(name, (double) totalNanos / iterations, totalBytes / iterations,
+                (double) totalGcs / iterations, (double) totalGcMillis / iterations);
+        System.out.println(result);
+        return result;
+    }
+
+    /** Bytes allocated on the heap by the current thread so far, or 0 if the JVM can't tell. */
+    public static long allocatedBytes() {
+        if (!THREADS.isThreadAllocatedMemorySupported()) return 0;
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** Collections so far, summed over all garbage collectors. */
+    public static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    /** Milliseconds spent in garbage collection so far, summed over all collectors. */
+    public static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    public static void consume(long value) {
+        sink += value;
+    }
+}
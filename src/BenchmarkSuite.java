@@ -0,0 +1,392 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs every sort, search, heap and list operation of the project over a grid of
+ * input sizes, key distributions and heap arities, so that a whole run can be
+ * compared before and after a change. Each line is one {@link Bench} measurement:
+ * time, bytes allocated and garbage collections per operation.
+ *
+ * Usage: {@code java BenchmarkSuite [group...] [n=1000,100000] [dist=random,zipf] [d=2,4,8]
+ * [out=results.csv] [baseline=old.csv] [threshold=1.2]}
+ * with the groups sorting, search, heap and lists (default: all of them) and the
+ * distributions random, sorted, reversed, few-unique and zipf (default: all of them).
+ * Operations that are quadratic in n only run up to n = MAX_QUADRATIC.
+ *
+ * out writes the results as CSV. With a baseline from an earlier run, every
+ * measurement that got slower than threshold times its baseline is listed at the
+ * end, and the exit status is 1 if there is any, so a script can gate on it.
+ */
+public class BenchmarkSuite {
+
+    static final int MAX_QUADRATIC = 20_000;
+    static final int WARMUP = 3;
+    static final int ITERATIONS = 5;
+    // Lookups per search measurement, fewer for strategies that are slow on the input.
+    static final int LOOKUPS = 10_000;
+    static final long COMPARISON_BUDGET = 100_000_000;
+
+    interface Sort {
+        void sort(int[] array);
+    }
+
+    // Results of the current run, keyed by "group,n,distribution,name".
+    private static final Map<String, Bench.Result> RESULTS = new LinkedHashMap<>();
+    private static String prefix;
+
+    static void run(String name, Bench.Setup setup, Bench.Task task) {
+        RESULTS.put(prefix + ",\"" + name + "\"", Bench.run(name, WARMUP, ITERATIONS, setup, task));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path out = null;
+        Path baseline = null;
+        double threshold = 1.2;
+        java.util.List<String> groups = new java.util.ArrayList<>();
+        int[] sizes = { 1_000, 100_000, 1_000_000 };
+        String[] distributions = { "random", "sorted", "reversed", "few-unique", "zipf" };
+        int[] arities = { 2, 4, 8 };
+        for (String arg : args) {
+            if (arg.startsWith("n=")) {
+                sizes = Arrays.stream(arg.substring(2).split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if (arg.startsWith("dist=")) {
+                distributions = arg.substring(5).split(",");
+            } else if (arg.startsWith("d=")) {
+                arities = Arrays.stream(arg.substring(2).split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if (arg.startsWith("out=")) {
+                out = Paths.get(arg.substring(4));
+            } else if (arg.startsWith("baseline=")) {
+                baseline = Paths.get(arg.substring(9));
+            } else if (arg.startsWith("threshold=")) {
+                threshold = Double.parseDouble(arg.substring(10));
+            } else {
+                groups.add(arg);
+            }
+        }
+        if (groups.isEmpty()) groups.addAll(Arrays.asList("sorting", "search", "heap", "lists"));
+
+        for (String group : groups) {
+            for (int n : sizes) {
+                for (String distribution : distributions) {
+                    int[] input = distribution(distribution, n, new Random(n));
+                    System.out.printf("%n# %s, n=%,d, %s%n", group, n, distribution);
+                    prefix = group + "," + n + "," + distribution;
+                    switch (group) {
+                        case "sorting": sorting(input); break;
+                        case "search": search(input); break;
+                        case "heap": heap(input, arities); break;
+                        case "lists": lists(input); break;
+                        default: throw new IllegalArgumentException("unknown group " + group);
+                    }
+                }
+            }
+        }
+
+        if (out != null) {
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(out))) {
+                writer.println("group,n,distribution,benchmark,ns_per_op,bytes_per_op,gc_per_op");
+                for (Map.Entry<String, Bench.Result> entry : RESULTS.entrySet()) {
+                    Bench.Result result = entry.getValue();
+                    writer.printf(Locale.ROOT, "%s,%.1f,%d,%.3f%n", entry.getKey(), result.nanosPerOp, result.bytesPerOp, result.gcsPerOp);
+                }
+            }
+        }
+        if (baseline != null && regressions(baseline, threshold) > 0) System.exit(1);
+    }
+
+    /** Lists the measurements that are more than threshold times slower than in the baseline CSV. */
+    static int regressions(Path baseline, double threshold) throws IOException {
+        Map<String, Double> before = new HashMap<>();
+        for (String line : Files.readAllLines(baseline)) {
+            int comma = line.lastIndexOf(',', line.lastIndexOf(',', line.lastIndexOf(',') - 1) - 1);
+            if (line.startsWith("group,") || comma < 0) continue;
+            String[] values = line.substring(comma + 1).split(",");
+            before.put(line.substring(0, comma), Double.parseDouble(values[0]));
+        }
+        int count = 0;
+        System.out.printf("%nCompared with %s (threshold %.2fx):%n", baseline, threshold);
+        for (Map.Entry<String, Bench.Result> entry : RESULTS.entrySet()) {
+            Double old = before.get(entry.getKey());
+            if (old == null || old == 0) continue;
+            double ratio = entry.getValue().nanosPerOp / old;
+            if (ratio > threshold) {
+                System.out.printf("  %-80s %6.2fx slower%n", entry.getKey(), ratio);
+                count++;
+            }
+        }
+        if (count == 0) System.out.println("  no regressions");
+        return count;
+    }
+
+    static int[] distribution(String name, int n, Random random) {
+        int[] array = new int[n];
+        switch (name) {
+            case "random":
+                for (int i = 0; i < n; i++) array[i] = random.nextInt();
+                break;
+            case "sorted":
+            case "reversed":
+                for (int i = 0; i < n; i++) array[i] = random.nextInt();
+                Arrays.sort(array);
+                if (name.equals("reversed")) {
+                    for (int i = 0, j = n - 1; i < j; i++, j--) {
+                        int tmp = array[i];
+                        array[i] = array[j];
+                        array[j] = tmp;
+                    }
+                }
+                break;
+            case "few-unique":
+                for (int i = 0; i < n; i++) array[i] = random.nextInt(16);
+                break;
+            case "zipf":
+                // P(k) ~ 1/k over 1..n, sampled through the inverse of the continuous CDF
+                for (int i = 0; i < n; i++) array[i] = (int) Math.exp(random.nextDouble() * Math.log(n + 1.0));
+                break;
+            default:
+                throw new IllegalArgumentException("unknown distribution " + name);
+        }
+        return array;
+    }
+
+    static void sorting(int[] input) {
+        int n = input.length;
+        boolean quadraticOk = n <= MAX_QUADRATIC;
+        // few distinct keys make this quickSort's partitions quadratic
+        boolean quickOk = quadraticOk || input.length == 0 || distinctAtLeast(input, 1024);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        if (quadraticOk) {
+            sort("selectionSort", input, Sorting::selectionSort);
+            sort("insertionSort", input, Sorting::insertionSort);
+            sort("bubbleSort", input, Sorting::bubbleSort);
+        }
+        if (quickOk) sort("quickSort", input, array -> Sorting.quickSort(array, 0, array.length - 1));
+        sort("mergeSort", input, Sorting::mergeSort);
+        sort("introSort", input, Sorting::introSort);
+        sort("heapSort", input, Sorting::heapSort);
+        sort("parallelSort", input, array -> Sorting.parallelSort(array, pool));
+        sort("parallelRadixSort", input, array -> Sorting.parallelRadixSort(array, pool));
+        sort("radixSort", input, Sorting::radixSort);
+        sort("bucketSort", input, Sorting::bucketSort);
+        sort("countingSort", input, Sorting::countingSort);
+        sort("sort(IntComparator)", input, array -> Sorting.sort(array, Integer::compare));
+
+        long[] longs = new long[n];
+        double[] doubles = new double[n];
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            longs[i] = (long) input[i] << 16;
+            doubles[i] = input[i] / 3.0;
+            boxed[i] = input[i];
+        }
+        long[] longWork = new long[n];
+        double[] doubleWork = new double[n];
+        Integer[] boxedWork = new Integer[n];
+        int[] intWork = new int[n];
+        int[] payload = new int[n];
+        run("radixSort(long[])", () -> System.arraycopy(longs, 0, longWork, 0, n), () -> {
+            Sorting.radixSort(longWork);
+            return n > 0 ? longWork[0] : 0;
+        });
+        run("radixSort(double[])", () -> System.arraycopy(doubles, 0, doubleWork, 0, n), () -> {
+            Sorting.radixSort(doubleWork);
+            return n > 0 ? (long) doubleWork[0] : 0;
+        });
+        run("sortByKey(int[], int[])", () -> {
+            System.arraycopy(input, 0, intWork, 0, n);
+            for (int i = 0; i < n; i++) payload[i] = i;
+        }, () -> {
+            Sorting.sortByKey(intWork, payload);
+            return n > 0 ? payload[0] : 0;
+        });
+        run("sortByKey(long[], int[])", () -> {
+            System.arraycopy(longs, 0, longWork, 0, n);
+            for (int i = 0; i < n; i++) payload[i] = i;
+        }, () -> {
+            Sorting.sortByKey(longWork, payload);
+            return n > 0 ? payload[0] : 0;
+        });
+        run("sortIndices(int[])", () -> {}, () -> Sorting.sortIndices(input).length);
+        run("sortIndices(long[])", () -> {}, () -> Sorting.sortIndices(longs).length);
+        run("mergeSort(T[], Comparator)", () -> System.arraycopy(boxed, 0, boxedWork, 0, n), () -> {
+            Sorting.mergeSort(boxedWork, Comparator.naturalOrder());
+            return n > 0 ? boxedWork[0] : 0;
+        });
+    }
+
+    static boolean distinctAtLeast(int[] input, int count) {
+        int[] sample = Arrays.copyOf(input, Math.min(input.length, 4 * count));
+        Arrays.sort(sample);
+        int distinct = 1;
+        for (int i = 1; i < sample.length; i++) {
+            if (sample[i] != sample[i - 1]) distinct++;
+        }
+        return distinct >= Math.min(count, input.length);
+    }
+
+    static void sort(String name, int[] input, Sort sort) {
+        int[] work = new int[input.length];
+        run(name, () -> System.arraycopy(input, 0, work, 0, input.length), () -> {
+            sort.sort(work);
+            return work.length > 0 ? work[0] : 0;
+        });
+    }
+
+    static void search(int[] input) {
+        int n = input.length;
+        if (n == 0) return;
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) sorted[i] = input[i];
+        Arrays.sort(sorted);
+        Random random = new Random(1);
+        long[] keys = new long[LOOKUPS];
+        for (int i = 0; i < keys.length; i++) keys[i] = input[random.nextInt(n)] + random.nextInt(2);
+
+        SortedSearch.Search[] searches = { new SortedSearch.LinearSearch(), new SortedSearch.BinarySearch(),
+                new SortedSearch.InterpolationSearch(), new SortedSearch.AdaptiveInterpolationSearch(),
+                new SortedSearch.ExponentialSearch() };
+        for (SortedSearch.Search search : searches) {
+            String name = search.getClass().getSimpleName();
+            int lookups = lookupsWithinBudget(name, sorted, keys);
+            run(String.format("%s.indexOf x%d", name, lookups), () -> {}, () -> {
+                long sum = 0;
+                for (int i = 0; i < lookups; i++) sum += search.indexOf(sorted, keys[i]);
+                return sum;
+            });
+        }
+        int[] out = new int[keys.length];
+        for (SortedSearch.Search search : new SortedSearch.Search[] { new SortedSearch.LinearSearch(), new SortedSearch.BinarySearch() }) {
+            run(String.format("%s.searchAll x%d", search.getClass().getSimpleName(), keys.length), () -> {}, () -> {
+                search.searchAll(sorted, keys, out);
+                return out[0];
+            });
+        }
+        SortedSearch.Index[] indexes = { new SortedSearch.BranchlessIndex(sorted), new SortedSearch.EytzingerIndex(sorted),
+                new SortedSearch.BlockedIndex(sorted), new SortedSearch.LearnedIndex(sorted, 64) };
+        for (SortedSearch.Index index : indexes) {
+            run(String.format("%s.lowerBound x%d", index.getClass().getSimpleName(), keys.length), () -> {}, () -> {
+                long sum = 0;
+                for (long key : keys) sum += index.lowerBound(key);
+                return sum;
+            });
+        }
+    }
+
+    /** Caps the number of timed lookups so that a strategy uses about COMPARISON_BUDGET comparisons. */
+    static int lookupsWithinBudget(String name, long[] sorted, long[] keys) {
+        SortedSearch.Search counting;
+        switch (name) {
+            case "LinearSearch": counting = new SortedSearch.LinearSearch(); break;
+            case "InterpolationSearch": counting = new SortedSearch.InterpolationSearch(); break;
+            default: return keys.length;
+        }
+        counting.countingComparisons();
+        int sample = 100;
+        for (int i = 0; i < sample; i++) counting.indexOf(sorted, keys[i]);
+        double perLookup = Math.max(1, (double) counting.getNumberOfComparisons() / sample);
+        return (int) Math.max(10, Math.min(keys.length, COMPARISON_BUDGET / perLookup));
+    }
+
+    static void heap(int[] input, int[] arities) {
+        int n = input.length;
+        java.util.List<Integer> list = new java.util.ArrayList<>(n);
+        for (int value : input) list.add(value);
+        int[] sorted = input.clone();
+        Arrays.sort(sorted);
+        int median = n > 0 ? sorted[n / 2] : 0;
+
+        for (int d : arities) {
+            run(String.format("DaryHeap d=%d add x%d", d, n), () -> {}, () -> {
+                DaryHeap<Integer> heap = new DaryHeap<>(d);
+                for (Integer value : list) heap.add(value);
+                return heap.size();
+            });
+            DaryHeap<Integer> heap = new DaryHeap<>(d);
+            run(String.format("DaryHeap d=%d build", d), () -> {}, () -> {
+                heap.build(list);
+                return heap.size();
+            });
+            run(String.format("DaryHeap d=%d deleteMin x%d", d, n), () -> heap.build(list), () -> {
+                long sum = 0;
+                while (!heap.isEmpty()) sum += heap.deleteMin();
+                return sum;
+            });
+            heap.build(list);
+            run(String.format("DaryHeap d=%d smallerThan(median)", d), () -> {}, () -> heap.smallerThan(median).size());
+        }
+    }
+
+    static void lists(int[] input) {
+        int n = input.length;
+        boolean quadraticOk = n <= MAX_QUADRATIC;
+        Random random = new Random(1);
+        int[] positions = new int[Math.min(n, LOOKUPS)];
+        for (int i = 0; i < positions.length; i++) positions[i] = random.nextInt(n);
+
+        for (String name : new String[] { "ArrayList", "LinkedList", "UnrolledLinkedList", "GapBufferList", "TieredVectorList" }) {
+            boolean linked = name.equals("LinkedList");
+            boolean array = name.equals("ArrayList");
+            run(String.format("%s add x%d", name, n), () -> {}, () -> {
+                List list = ListBenchmark.create(name);
+                for (int value : input) list.add(value);
+                return list.size();
+            });
+            List filled = ListBenchmark.create(name);
+            for (int value : input) filled.add(value);
+            run(String.format("%s iterator x%d", name, n), () -> {}, () -> {
+                long sum = 0;
+                List.IntIterator iterator = filled.iterator();
+                while (iterator.hasNext()) sum += iterator.nextInt();
+                return sum;
+            });
+            if (!linked || quadraticOk) {
+                run(String.format("%s get x%d", name, positions.length), () -> {}, () -> {
+                    long sum = 0;
+                    for (int pos : positions) sum += filled.get(pos);
+                    return sum;
+                });
+            }
+            if (!array || quadraticOk) {
+                run(String.format("%s add(0) x%d", name, n), () -> {}, () -> {
+                    List list = ListBenchmark.create(name);
+                    for (int value : input) list.add(0, value);
+                    return list.size();
+                });
+            }
+            if (!array && !linked || quadraticOk) {
+                run(String.format("%s add(size/2) x%d", name, n), () -> {}, () -> {
+                    List list = ListBenchmark.create(name);
+                    for (int value : input) list.add(list.size() / 2, value);
+                    return list.size();
+                });
+            }
+            List[] holder = new List[1];
+            if (!array || quadraticOk) {
+                run(String.format("%s delete(0) x%d", name, n), () -> {
+                    holder[0] = ListBenchmark.create(name);
+                    for (int value : input) holder[0].add(value);
+                }, () -> {
+                    List list = holder[0];
+                    while (!list.isEmpty()) list.delete(0);
+                    return list.size();
+                });
+            }
+            run(String.format("%s removeIf(odd) x%d", name, n), () -> {
+                holder[0] = ListBenchmark.create(name);
+                holder[0].addAll(input);
+            }, () -> holder[0].removeIf(value -> (value & 1) != 0));
+        }
+    }
+}
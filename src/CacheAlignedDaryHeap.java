@@ -0,0 +1,166 @@
+import java.util.NoSuchElementException;
+
+/**
+ * A d-ary min-heap of longs laid out so that all children of a node share one
+ * cache line. In a plain array heap the children of node i start at d*i+1,
+ * which straddles line boundaries; here the root is shifted by a padding offset
+ * so that every child group starts on a line boundary. A sift then touches one
+ * line per level, which matters once the heap no longer fits in the cache.
+ *
+ * The JVM doesn't let us choose where an array lives, so the padding assumes
+ * HotSpot's usual layout: the data of a long[] starts 16 bytes after the object,
+ * and large arrays (the ones where this pays off) are allocated at the start of
+ * a heap region, which is line-aligned. For small arrays the alignment is a
+ * best effort, but the heap is correct either way.
+ */
+public class CacheAlignedDaryHeap {
+    public static final int CACHE_LINE_BYTES = 64;
+    private static final int ARRAY_BASE_OFFSET_BYTES = 16;
+
+    private long[] elements;
+    private int size;
+    private final int d;
+    private final int offset; // physical index of the root
+
+    /** Creates a heap whose fan-out fills exactly one cache line with child keys. */
+    public CacheAlignedDaryHeap() {
+        this(fanOutFor(Long.BYTES));
+    }
+
+    public CacheAlignedDaryHeap(int d) {
+        this(d, 16);
+    }
+
+    public CacheAlignedDaryHeap(int d, int initialCapacity) {
+        if (d < 2 || Integer.bitCount(d) != 1) throw new IllegalArgumentException("d must be a power of two >= 2");
+        this.d = d;
+        int lineElements = CACHE_LINE_BYTES / Long.BYTES;
+        int padding = ((CACHE_LINE_BYTES - ARRAY_BASE_OFFSET_BYTES) / Long.BYTES) % lineElements;
+        // With the root at padding + d - 1, the first child of logical node i sits at padding + d*(i+1).
+        this.offset = padding + d - 1;
+        this.elements = new long[offset + Math.max(1, initialCapacity)];
+        this.size = 0;
+    }
+
+    /** Returns the largest power-of-two fan-out whose child group fits in one cache line. */
+    public static int fanOutFor(int elementBytes) {
+        if (elementBytes <= 0) throw new IllegalArgumentException("element size must be positive");
+        int d = Integer.highestOneBit(Math.max(1, CACHE_LINE_BYTES / elementBytes));
+        return Math.max(2, d);
+    }
+
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(minCapacity, 2 * (elements.length - offset));
+        long[] newElements = new long[offset + newCapacity];
+        System.arraycopy(elements, offset, newElements, offset, size);
+        elements = newElements;
+    }
+
+    // Positions below are physical array indices; the last one in use is offset + size - 1.
+    protected void siftDown(int pos, long value) {
+        int end = offset + size;
+        while (true) {
+            int firstChild = d * (pos - offset) + offset + 1;
+            if (firstChild >= end) break;
+            int lastChild = Math.min(firstChild + d, end);
+            int smallest = firstChild;
+            long smallestValue = elements[firstChild];
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (elements[child] < smallestValue) {
+                    smallest = child;
+                    smallestValue = elements[child];
+                }
+            }
+            if (smallestValue >= value) break;
+            elements[pos] = smallestValue;
+            pos = smallest;
+        }
+        elements[pos] = value;
+    }
+
+    protected void siftUp(int pos, long value) {
+        while (pos > offset) {
+            int parentPos = (pos - offset - 1) / d + offset;
+            if (elements[parentPos] <= value) break;
+            elements[pos] = elements[parentPos];
+            pos = parentPos;
+        }
+        elements[pos] = value;
+    }
+
+    public long min() {
+        if (size == 0) throw new NoSuchElementException();
+        return elements[offset];
+    }
+
+    public long deleteMin() {
+        if (size == 0) throw new NoSuchElementException();
+        long min = elements[offset];
+        size--;
+        if (size > 0) siftDown(offset, elements[offset + size]);
+        return min;
+    }
+
+    public void build(long[] array) {
+        if (array.length > elements.length - offset) elements = new long[offset + array.length];
+        System.arraycopy(array, 0, elements, offset, array.length);
+        size = array.length;
+        for (int i = (size - 2) / d; i >= 0; i--) {
+            siftDown(offset + i, elements[offset + i]);
+        }
+    }
+
+    public void add(long element) {
+        if (size == elements.length - offset) grow(size + 1);
+        size++;
+        siftUp(offset + size - 1, element);
+    }
+
+    /** Returns all elements smaller than the given value in level order. */
+    public long[] smallerThan(long element) {
+        int[] positions = new int[size];
+        int count = 0;
+        int end = offset + size;
+
+        if (size == 0 || elements[offset] >= element) return new long[0];
+        positions[count++] = offset;
+        for (int head = 0; head < count; head++) {
+            int firstChild = d * (positions[head] - offset) + offset + 1;
+            int lastChild = Math.min(firstChild + d, end);
+            for (int child = firstChild; child < lastChild; child++) {
+                if (elements[child] < element) positions[count++] = child;
+            }
+        }
+
+        long[] result = new long[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = elements[positions[i]];
+        }
+        return result;
+    }
+
+    protected void check() {
+        for (int pos = offset + 1; pos < offset + size; pos++) {
+            int parent = (pos - offset - 1) / d + offset;
+            if (elements[parent] > elements[pos]) {
+                System.err.println("Min-Heap Error: Parent " + elements[parent] + " is greater than child " + elements[pos]);
+            }
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getD() {
+        return d;
+    }
+}
@@ -0,0 +1,233 @@
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Append-only list that any number of threads can add to and read from without
+ * locks.
+ *
+ * The elements live in chunks of 64, 128, 256, ... ints, so the list grows by
+ * allocating the next chunk and never copies an element. A producer reserves a
+ * range of positions with one atomic add on the reserved counter, writes its
+ * elements, and marks them as filled in the chunk's bitmap. The published size
+ * only advances over a prefix whose bits are all set: whichever producer finishes
+ * moves it as far as the filled bits reach, so a slow producer delays the
+ * visibility of later elements but never blocks another thread.
+ *
+ * size() and get() read the published size and then the element, which is wait
+ * free, and see every element below the size completely written. The mutating
+ * methods of {@link List} other than add throw UnsupportedOperationException.
+ *
+ * appendBatch reserves, writes and publishes a whole array at once, so the atomic
+ * operations that every add needs are paid once per batch.
+ */
+public class ConcurrentAppendList implements List {
+    private static final int FIRST_SHIFT = 6;
+    private static final int FIRST_CHUNK = 1 << FIRST_SHIFT;
+    private static final int NUM_CHUNKS = 31 - FIRST_SHIFT;
+    // The positions in the chunks; the next chunk would exceed int indexing.
+    public static final int MAX_SIZE = FIRST_CHUNK * ((1 << NUM_CHUNKS) - 1);
+
+    private static final class Chunk {
+        final int[] elements;
+        final AtomicLongArray filled;
+
+        Chunk(int size) {
+            this.elements = new int[size];
+            this.filled = new AtomicLongArray(size >>> 6);
+        }
+    }
+
+    // Chunk k holds the positions [FIRST_CHUNK * (2^k - 1), FIRST_CHUNK * (2^(k+1) - 1)).
+    private final AtomicReferenceArray<Chunk> chunks = new AtomicReferenceArray<>(NUM_CHUNKS);
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+
+    private static int chunkIndex(long pos) {
+        return 63 - Long.numberOfLeadingZeros(pos + FIRST_CHUNK) - FIRST_SHIFT;
+    }
+
+    private static int chunkOffset(long pos) {
+        long shifted = pos + FIRST_CHUNK;
+        return (int) (shifted ^ Long.highestOneBit(shifted));
+    }
+
+    /**
+     * Returns chunk k, allocating it if no other thread has. Two threads that get
+     * there at the same time both allocate it, and the loser's copy is garbage.
+     */
+    private Chunk chunk(int k) {
+        Chunk chunk = chunks.get(k);
+        if (chunk == null) {
+            chunk = new Chunk(FIRST_CHUNK << k);
+            if (!chunks.compareAndSet(k, null, chunk)) chunk = chunks.get(k);
+        }
+        return chunk;
+    }
+
+    /** Reserves count positions and returns the first one. */
+    private long reserve(int count) {
+        long start = reserved.getAndAdd(count);
+        if (start + count > MAX_SIZE) throw new IllegalStateException("list is full");
+        return start;
+    }
+
+    /** Sets the filled bits of the positions [from, from + count) within one chunk. */
+    private static void markFilled(Chunk chunk, int from, int count) {
+        int to = from + count;
+        while (from < to) {
+            int word = from >>> 6;
+            int end = Math.min(to, (word + 1) << 6);
+            long bits = (end - from == 64 ? -1L : ((1L << (end - from)) - 1)) << (from & 63);
+            if (bits == -1L) {
+                chunk.filled.set(word, bits); // nobody else has positions in this word
+            } else {
+                chunk.filled.getAndAccumulate(word, bits, (a, b) -> a | b);
+            }
+            from = end;
+        }
+    }
+
+    /** Advances the published size over all filled positions that follow it. */
+    private void publish() {
+        long size = published.get();
+        while (true) {
+            long end = filledFrom(size);
+            if (end == size) return;
+            if (published.compareAndSet(size, end)) {
+                size = end;
+            } else {
+                size = published.get();
+            }
+        }
+    }
+
+    /** First position at or after pos that is not filled yet. */
+    private long filledFrom(long pos) {
+        while (true) {
+            int k = chunkIndex(pos);
+            if (k >= NUM_CHUNKS) return pos;
+            Chunk chunk = chunks.get(k);
+            if (chunk == null) return pos;
+            int offset = chunkOffset(pos);
+            long word = chunk.filled.get(offset >>> 6) >>> (offset & 63);
+            int ones = Long.numberOfTrailingZeros(~word);
+            int inWord = 64 - (offset & 63);
+            if (ones < inWord) return pos + ones;
+            pos += inWord;
+        }
+    }
+
+    public void add(int element) {
+        long pos = reserve(1);
+        Chunk chunk = chunk(chunkIndex(pos));
+        int offset = chunkOffset(pos);
+        chunk.elements[offset] = element;
+        markFilled(chunk, offset, 1);
+        publish();
+    }
+
+    /**
+     * Appends all elements as one contiguous range and returns the position of the
+     * first one. They become visible together once every earlier range is.
+     */
+    public int appendBatch(int[] elements) {
+        if (elements.length == 0) return size();
+        long start = reserve(elements.length);
+        long pos = start;
+        int from = 0;
+        while (from < elements.length) {
+            Chunk chunk = chunk(chunkIndex(pos));
+            int offset = chunkOffset(pos);
+            int count = Math.min(elements.length - from, chunk.elements.length - offset);
+            System.arraycopy(elements, from, chunk.elements, offset, count);
+            markFilled(chunk, offset, count);
+            pos += count;
+            from += count;
+        }
+        publish();
+        return (int) start;
+    }
+
+    public boolean isEmpty() {
+        return published.get() == 0;
+    }
+
+    /** Number of elements that are visible to get, a prefix of all added ones. */
+    public int size() {
+        return (int) published.get();
+    }
+
+    public int get(int pos) {
+        if (pos < 0 || pos >= published.get()) throw new IndexOutOfBoundsException(pos);
+        return chunks.get(chunkIndex(pos)).elements[chunkOffset(pos)];
+    }
+
+    public void add(int pos, int element) {
+        throw new UnsupportedOperationException("append only");
+    }
+
+    public void delete(int pos) {
+        throw new UnsupportedOperationException("append only");
+    }
+
+    public void clear() {
+        throw new UnsupportedOperationException("append only");
+    }
+
+    public void addAll(int pos, int[] elements) {
+        throw new UnsupportedOperationException("append only");
+    }
+
+    public void addAll(int[] elements) {
+        appendBatch(elements);
+    }
+
+    /** Visits the elements published when the call starts, chunk by chunk. */
+    public void forEach(IntConsumer action) {
+        long size = published.get();
+        for (int k = 0; k < NUM_CHUNKS; k++) {
+            long start = (long) FIRST_CHUNK * ((1L << k) - 1);
+            if (start >= size) break;
+            int[] elements = chunks.get(k).elements;
+            int count = (int) Math.min(elements.length, size - start);
+            for (int i = 0; i < count; i++) action.accept(elements[i]);
+        }
+    }
+
+    /** Iterates over the elements published when it is created; it can't change the list. */
+    public ListIterator listIterator(int pos) {
+        int size = size();
+        if (pos < 0 || pos > size) throw new IndexOutOfBoundsException(pos);
+        return new ListIterator() {
+            private int cursor = pos;
+
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            public int nextInt() {
+                if (cursor >= size) throw new NoSuchElementException();
+                return get(cursor++);
+            }
+
+            public int nextIndex() {
+                return cursor;
+            }
+
+            public void add(int element) {
+                throw new UnsupportedOperationException("append only");
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException("append only");
+            }
+
+            public void set(int element) {
+                throw new UnsupportedOperationException("append only");
+            }
+        };
+    }
+}
@@ -0,0 +1,164 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Measures throughput and rank error of the concurrent priority queues for
+ * 1, 2, 4, ... up to the number of available cores. The baseline is a single
+ * {@link DaryHeap} behind one lock.
+ *
+ * Throughput: the queue is prefilled, then every thread alternates deleteMin
+ * and add. Rank error: the queue is filled with 0..n-1 and all threads delete
+ * concurrently; replaying the deletions in order tells how many smaller keys
+ * were still in the queue when each key was removed.
+ */
+public class ConcurrentHeapBenchmark {
+
+    /** The current approach: one heap, one lock. */
+    static class SynchronizedDaryHeap<T extends Comparable<T>> implements ConcurrentPriorityQueue<T> {
+        private final DaryHeap<T> heap;
+
+        SynchronizedDaryHeap(int d) {
+            this.heap = new DaryHeap<>(d);
+        }
+
+        public synchronized void add(T element) {
+            heap.add(element);
+        }
+
+        public synchronized void addAll(Collection<? extends T> elements) {
+            for (T element : elements) heap.add(element);
+        }
+
+        public synchronized T deleteMin() {
+            return heap.deleteMin();
+        }
+
+        public synchronized int drainMin(int n, List<? super T> result) {
+            int drained = 0;
+            while (drained < n && !heap.isEmpty()) {
+                result.add(heap.deleteMin());
+                drained++;
+            }
+            return drained;
+        }
+
+        public synchronized int size() {
+            return heap.size();
+        }
+
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+    }
+
+    private static final int D = 4;
+
+    static void runThreads(int numThreads, IntFunction<Runnable> work) {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            Runnable runnable = work.apply(t);
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                runnable.run();
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static double throughput(ConcurrentPriorityQueue<Integer> queue, int prefill, int numThreads, int opsPerThread) {
+        Random random = new Random(1l);
+        List<Integer> initial = new ArrayList<>(prefill);
+        for (int i = 0; i < prefill; i++) initial.add(random.nextInt());
+        queue.addAll(initial);
+
+        long start = System.nanoTime();
+        runThreads(numThreads, t -> () -> {
+            ThreadLocalRandom threadRandom = ThreadLocalRandom.current();
+            for (int i = 0; i < opsPerThread; i += 2) {
+                Integer min = queue.deleteMin();
+                queue.add(min == null ? threadRandom.nextInt() : min + threadRandom.nextInt(1 << 16));
+            }
+        });
+        long nanos = System.nanoTime() - start;
+        return (double) numThreads * opsPerThread / nanos * 1e3; // million ops per second
+    }
+
+    /** Returns {mean, max} rank error of concurrent deletions from a queue holding 0..n-1. */
+    static double[] rankError(ConcurrentPriorityQueue<Integer> queue, int n, int numThreads) {
+        List<Integer> keys = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) keys.add(i);
+        Collections.shuffle(keys, new Random(1l));
+        queue.addAll(keys);
+
+        int[] order = new int[n]; // order[seq] = key removed at that point in time
+        AtomicLong sequence = new AtomicLong();
+        runThreads(numThreads, t -> () -> {
+            Integer key;
+            while ((key = queue.deleteMin()) != null) {
+                order[(int) sequence.getAndIncrement()] = key;
+            }
+        });
+
+        // Fenwick tree over the keys still in the queue
+        int[] tree = new int[n + 1];
+        for (int i = 1; i <= n; i++) {
+            tree[i]++;
+            int parent = i + (i & -i);
+            if (parent <= n) tree[parent] += tree[i];
+        }
+        long total = 0;
+        long max = 0;
+        for (int seq = 0; seq < n; seq++) {
+            int key = order[seq];
+            long smaller = 0;
+            for (int i = key; i > 0; i -= i & -i) smaller += tree[i];
+            total += smaller;
+            max = Math.max(max, smaller);
+            for (int i = key + 1; i <= n; i += i & -i) tree[i]--;
+        }
+        return new double[] { (double) total / n, max };
+    }
+
+    public static void main(String[] args) {
+        int prefill = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int opsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-24s %8s %14s %14s %10s%n", "queue", "threads", "Mops/s", "mean rank", "max rank");
+        for (int threads = 1; threads <= maxThreads; threads = threads == maxThreads ? threads + 1 : Math.min(2 * threads, maxThreads)) {
+            int numThreads = threads;
+            String[] names = { "synchronized DaryHeap", "FineGrainedDaryHeap", "MultiQueue (k=2t)" };
+            List<Supplier<ConcurrentPriorityQueue<Integer>>> factories = List.of(
+                    () -> new SynchronizedDaryHeap<>(D),
+                    () -> new FineGrainedDaryHeap<>(D, 2 * prefill),
+                    () -> new MultiQueue<>(Math.max(2, 2 * numThreads), D));
+            for (int q = 0; q < names.length; q++) {
+                throughput(factories.get(q).get(), prefill, numThreads, opsPerThread / 10); // warmup
+                double mops = throughput(factories.get(q).get(), prefill, numThreads, opsPerThread);
+                double[] rank = rankError(factories.get(q).get(), prefill, numThreads);
+                System.out.printf("%-24s %8d %14.3f %14.1f %10.0f%n", names[q], numThreads, mops, rank[0], rank[1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A min-priority queue that can be used by several threads at once.
+ * Implementations may be relaxed, i.e. deleteMin may return an element that
+ * is close to, but not exactly, the current minimum.
+ *
+ * @param <T> Type of objects stored in the queue.
+ */
+public interface ConcurrentPriorityQueue<T extends Comparable<T>> {
+    public void add(T element);
+
+    public void addAll(Collection<? extends T> elements);
+
+    /** Removes and returns a (possibly approximate) minimum, or null if the queue is empty. */
+    public T deleteMin();
+
+    /** Removes up to n elements in ascending (possibly approximate) order and appends them to the result. */
+    public int drainMin(int n, List<? super T> result);
+
+    public int size();
+
+    public boolean isEmpty();
+}
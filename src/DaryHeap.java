@@ -1,73 +1,153 @@
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedList;
+import java.util.NoSuchElementException;
 import java.util.Queue;
 
 /**
  * Implements a d-ary min-heap using an array-based structure.
+ * The elements are ordered by their natural order or by a given comparator; with a
+ * reversed one it is a max-heap.
  *
  * @param <T> Type of objects stored in the heap.
  */
 public class DaryHeap<T extends Comparable<T>> {
+    private static final Metrics.Scope METRICS = Metrics.scope("DaryHeap");
+    private static final Metrics.Histogram ADD = METRICS.histogram("add");
+    private static final Metrics.Histogram DELETE_MIN = METRICS.histogram("deleteMin");
+    private static final Metrics.Histogram REPLACE_MIN = METRICS.histogram("replaceMin");
+    private static final Metrics.Histogram BUILD = METRICS.histogram("build");
+
     private List<T> elements;
     private final int d;
+    private final Comparator<? super T> order;
 
     public DaryHeap(int d) {
-        this.elements = new ArrayList<>();
-        this.d = d;
+        this(d, Comparator.naturalOrder());
     }
 
-    protected void swap(int i, int j) {
-        T elementI = elements.get(i);
-        T elementJ = elements.get(j);
-        elements.set(j, elementI);
-        elements.set(i, elementJ);
+    public DaryHeap(int d, Comparator<? super T> order) {
+        this.elements = new ArrayList<>();
+        this.d = d;
+        this.order = order;
     }
 
+    // Moves a hole down from i until the element fits, instead of swapping at every level.
     protected void siftDown(int i) {
-        int smallest = i;
-        for (int pos = 1; pos <= d; pos++) {
-            int child = d * i + pos;
-            if (child < size() && elements.get(child).compareTo(elements.get(smallest)) < 0) {
-                smallest = child;
+        T element = elements.get(i);
+        int comparisons = 0;
+        int moves = 0;
+        while (true) {
+            int firstChild = d * i + 1;
+            if (firstChild >= size()) break;
+            int lastChild = Math.min(firstChild + d, size());
+            int smallest = firstChild;
+            T smallestElement = elements.get(firstChild);
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                T childElement = elements.get(child);
+                comparisons++;
+                if (order.compare(childElement, smallestElement) < 0) {
+                    smallest = child;
+                    smallestElement = childElement;
+                }
             }
+            comparisons++;
+            if (order.compare(smallestElement, element) >= 0) break;
+            elements.set(i, smallestElement);
+            moves++;
+            i = smallest;
         }
-        if (smallest != i) {
-            swap(i, smallest);
-            siftDown(smallest);
+        elements.set(i, element);
+        if (Metrics.ENABLED) {
+            METRICS.count(Metrics.Event.COMPARISONS, comparisons);
+            METRICS.count(Metrics.Event.MOVES, moves + 1);
         }
     }
 
+    public T min() {
+        if (size() == 0) return null;
+        return elements.get(0);
+    }
+
     public T deleteMin() {
         if (size() == 0) return null;
+        long start = Metrics.start();
+        T min = elements.get(0);
+        T last = elements.remove(size() - 1);
+        if (!isEmpty()) {
+            elements.set(0, last);
+            siftDown(0);
+        }
+        if (Metrics.ENABLED) DELETE_MIN.record(start);
+        return min;
+    }
+
+    /**
+     * Replaces the minimum with element and returns the old minimum: one siftDown
+     * instead of a deleteMin followed by an add. Throws NoSuchElementException if
+     * the heap is empty, as there is no minimum to replace.
+     */
+    public T replaceMin(T element) {
+        if (size() == 0) throw new NoSuchElementException();
+        long start = Metrics.start();
         T min = elements.get(0);
-        swap(0, size() - 1);
-        elements.remove(size() - 1);
+        elements.set(0, element);
         siftDown(0);
+        if (Metrics.ENABLED) REPLACE_MIN.record(start);
         return min;
     }
 
+    /** Makes a heap of a copy of list, which stays unchanged. */
     public void build(List<T> list) {
+        long start = Metrics.start();
         elements.clear();
         elements.addAll(list);
-        for (int i = (size() - 2) / d; i >= 0; i--) {
+        for (int i = Math.floorDiv(size() - 2, d); i >= 0; i--) {
+            siftDown(i);
+        }
+        if (Metrics.ENABLED) BUILD.record(start);
+    }
+
+    /**
+     * Makes a heap of list itself, without copying it: list is reordered and from
+     * then on belongs to the heap, so it must be modifiable and support fast
+     * positional access.
+     */
+    public void heapify(List<T> list) {
+        long start = Metrics.start();
+        elements = list;
+        for (int i = Math.floorDiv(size() - 2, d); i >= 0; i--) {
             siftDown(i);
         }
+        if (Metrics.ENABLED) BUILD.record(start);
     }
 
     protected void siftUp(int i) {
+        T element = elements.get(i);
+        int comparisons = 0;
+        int moves = 0;
         while (i > 0) {
             int parentPos = (i - 1) / d;
-            if (elements.get(i).compareTo(elements.get(parentPos)) < 0) {
-                swap(i, parentPos);
-            }
+            T parent = elements.get(parentPos);
+            comparisons++;
+            if (order.compare(element, parent) >= 0) break;
+            elements.set(i, parent);
+            moves++;
             i = parentPos;
         }
+        elements.set(i, element);
+        if (Metrics.ENABLED) {
+            METRICS.count(Metrics.Event.COMPARISONS, comparisons);
+            METRICS.count(Metrics.Event.MOVES, moves + 1);
+        }
     }
 
     public void add(T element) {
+        long start = Metrics.start();
         elements.add(element);
         siftUp(size() - 1);
+        if (Metrics.ENABLED) ADD.record(start);
     }
 
     public List<T> smallerThan(T element) {
@@ -75,14 +155,14 @@ public class DaryHeap<T extends Comparable<T>> {
         Queue<Integer> nodes = new LinkedList<>();
 
         if (elements.isEmpty()) return result;
-        if (elements.get(0).compareTo(element) < 0) nodes.add(0);
+        if (order.compare(elements.get(0), element) < 0) nodes.add(0);
         while (!nodes.isEmpty()) {
             int index = nodes.remove();
             result.add(elements.get(index));
             for (int pos = 1; pos <= d; pos++) {
                 int childIndex = d * index + pos;
                 if (childIndex >= size()) break;
-                if (elements.get(childIndex).compareTo(element) < 0) {
+                if (order.compare(elements.get(childIndex), element) < 0) {
                     nodes.add(childIndex);
                 }
             }
@@ -94,7 +174,7 @@ public class DaryHeap<T extends Comparable<T>> {
         for (int i = 0; i < size(); i++) {
             for (int pos = 1; pos <= d; pos++) {
                 int childIndex = d * i + pos;
-                if (childIndex < size() && elements.get(i).compareTo(elements.get(childIndex)) > 0) {
+                if (childIndex < size() && order.compare(elements.get(i), elements.get(childIndex)) > 0) {
                     System.err.println("Min-Heap Error: Parent " + elements.get(i) + " is greater than child " + elements.get(childIndex));
                 }
             }
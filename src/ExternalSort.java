@@ -0,0 +1,269 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sorts a binary file of ints or longs (big-endian, as written by DataOutputStream)
+ * that may be larger than the Java heap.
+ *
+ * Pass 0 maps the input chunk by chunk, sorts each chunk in memory with
+ * {@link Sorting#radixSort} and writes it as a sorted run to a temporary file.
+ * The following passes merge up to fanIn runs at a time with a
+ * {@link LongPayloadDaryHeap} over buffered run readers, until a single run,
+ * the output file, is left.
+ */
+public class ExternalSort {
+
+    /** Bytes read and written by every pass, pass 0 being run formation. */
+    public static class Stats {
+        public final List<Long> bytesRead = new ArrayList<>();
+        public final List<Long> bytesWritten = new ArrayList<>();
+        public int numRuns;
+
+        void addPass(long read, long written) {
+            bytesRead.add(read);
+            bytesWritten.add(written);
+        }
+
+        public int passes() {
+            return bytesRead.size();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(numRuns + " initial runs");
+            for (int pass = 0; pass < passes(); pass++) {
+                sb.append(String.format("%n  pass %d: read %,d bytes, wrote %,d bytes", pass, bytesRead.get(pass), bytesWritten.get(pass)));
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final int HEAP_D = 4;
+
+    private final int elementBytes;
+    private final long memoryBudget;
+    private final int bufferBytes;
+    private final Path tempDir;
+
+    /**
+     * @param elementBytes  4 for int files, 8 for long files
+     * @param memoryBudget  bytes used for sorting a chunk (the chunk, its scratch
+     *                      buffer and the write buffer of the run) and for the
+     *                      buffers of a merge
+     * @param bufferBytes   size of every run reader's and the writer's buffer
+     * @param tempDir       where the runs are written
+     */
+    public ExternalSort(int elementBytes, long memoryBudget, int bufferBytes, Path tempDir) {
+        if (elementBytes != Integer.BYTES && elementBytes != Long.BYTES) throw new IllegalArgumentException("elements must be ints or longs");
+        if (bufferBytes < elementBytes || bufferBytes % elementBytes != 0) throw new IllegalArgumentException("buffer size must be a multiple of the element size");
+        if (memoryBudget < 3L * bufferBytes) throw new IllegalArgumentException("memory budget must hold at least three buffers");
+        this.elementBytes = elementBytes;
+        this.memoryBudget = memoryBudget;
+        this.bufferBytes = bufferBytes;
+        this.tempDir = tempDir;
+    }
+
+    /** Number of runs merged at once: one read buffer per run plus one for writing. */
+    private int fanIn() {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(2, memoryBudget / bufferBytes - 1));
+    }
+
+    /**
+     * Elements per initial run: the chunk and its radix sort scratch buffer share what
+     * the buffer the run is written through leaves of the budget.
+     */
+    private int chunkElements() {
+        long elements = (memoryBudget - bufferBytes) / (2L * elementBytes);
+        return (int) Math.min(elements, (Integer.MAX_VALUE - 8) / elementBytes);
+    }
+
+    public Stats sort(Path input, Path output) throws IOException {
+        Stats stats = new Stats();
+        // Every temporary run file, so that a failed sort doesn't leave any behind.
+        List<Path> temporary = new ArrayList<>();
+        try {
+            List<Path> runs = createRuns(input, stats, temporary);
+            stats.numRuns = runs.size();
+
+            if (runs.isEmpty()) {
+                Files.write(output, new byte[0]);
+                return stats;
+            }
+            while (runs.size() > 1) {
+                List<Path> merged = new ArrayList<>();
+                long read = 0;
+                long written = 0;
+                int fanIn = fanIn();
+                boolean lastPass = runs.size() <= fanIn;
+                for (int from = 0; from < runs.size(); from += fanIn) {
+                    List<Path> group = runs.subList(from, Math.min(from + fanIn, runs.size()));
+                    Path target = lastPass ? output : createRunFile(temporary);
+                    for (Path run : group) read += Files.size(run);
+                    written += merge(group, target);
+                    for (Path run : group) Files.delete(run);
+                    merged.add(target);
+                }
+                stats.addPass(read, written);
+                runs = merged;
+            }
+            if (!runs.get(0).equals(output)) { // everything fit into a single run
+                Files.move(runs.get(0), output, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return stats;
+        } finally {
+            // After a successful sort they are all gone already.
+            for (Path run : temporary) {
+                try {
+                    Files.deleteIfExists(run);
+                } catch (IOException e) {
+                    // best effort, so that it doesn't replace the exception that got us here
+                }
+            }
+        }
+    }
+
+    private Path createRunFile(List<Path> temporary) throws IOException {
+        Path run = Files.createTempFile(tempDir, "run", ".bin");
+        temporary.add(run);
+        return run;
+    }
+
+    private List<Path> createRuns(Path input, Stats stats, List<Path> temporary) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        long read = 0;
+        long written = 0;
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size % elementBytes != 0) throw new IOException("file size is not a multiple of " + elementBytes + " bytes");
+            int chunk = chunkElements();
+            int[] ints = null, intScratch = null;
+            long[] longs = null, longScratch = null;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bufferBytes);
+            for (long pos = 0; pos < size; pos += (long) chunk * elementBytes) {
+                int count = (int) Math.min(chunk, (size - pos) / elementBytes);
+                MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, pos, (long) count * elementBytes);
+                Path run = createRunFile(temporary);
+                if (elementBytes == Integer.BYTES) {
+                    if (ints == null) {
+                        ints = new int[count];
+                        intScratch = new int[count];
+                    }
+                    mapped.asIntBuffer().get(ints, 0, count);
+                    Sorting.radixSort(ints, 0, count, 16, intScratch); // the last chunk may be shorter
+                    written += writeRun(run, buffer, ints, null, count);
+                } else {
+                    if (longs == null) {
+                        longs = new long[count];
+                        longScratch = new long[count];
+                    }
+                    mapped.asLongBuffer().get(longs, 0, count);
+                    Sorting.radixSort(longs, 0, count, longScratch);
+                    written += writeRun(run, buffer, null, longs, count);
+                }
+                read += (long) count * elementBytes;
+                runs.add(run);
+            }
+        }
+        stats.addPass(read, written);
+        return runs;
+    }
+
+    /** Writes the first count elements of ints or longs to run through buffer. */
+    private long writeRun(Path run, ByteBuffer buffer, int[] ints, long[] longs, int count) throws IOException {
+        try (FileChannel out = FileChannel.open(run, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int perBuffer = bufferBytes / elementBytes;
+            for (int from = 0; from < count; from += perBuffer) {
+                int n = Math.min(perBuffer, count - from);
+                buffer.clear();
+                if (ints != null) {
+                    buffer.asIntBuffer().put(ints, from, n);
+                } else {
+                    buffer.asLongBuffer().put(longs, from, n);
+                }
+                buffer.limit(n * elementBytes);
+                while (buffer.hasRemaining()) out.write(buffer);
+            }
+        }
+        return (long) count * elementBytes;
+    }
+
+    /** Reads a run sequentially through a fixed-size buffer. */
+    private class RunReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(bufferBytes);
+        long current;
+
+        RunReader(Path run) throws IOException {
+            this.channel = FileChannel.open(run, StandardOpenOption.READ);
+            buffer.limit(0);
+        }
+
+        /** Advances to the next element; returns false at the end of the run. */
+        boolean next() throws IOException {
+            if (buffer.remaining() < elementBytes) {
+                buffer.compact();
+                while (buffer.position() < elementBytes) {
+                    if (channel.read(buffer) < 0) return false;
+                }
+                buffer.flip();
+            }
+            current = elementBytes == Integer.BYTES ? buffer.getInt() : buffer.getLong();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private long merge(List<Path> runs, Path target) throws IOException {
+        List<RunReader> readers = new ArrayList<>();
+        long written = 0;
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Path run : runs) readers.add(new RunReader(run));
+            LongPayloadDaryHeap heap = new LongPayloadDaryHeap(HEAP_D, readers.size());
+            for (int i = 0; i < readers.size(); i++) {
+                if (readers.get(i).next()) heap.add(readers.get(i).current, i);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bufferBytes);
+            while (!heap.isEmpty()) {
+                long value = heap.minKey();
+                int source = heap.minPayload();
+                if (elementBytes == Integer.BYTES) {
+                    buffer.putInt((int) value);
+                } else {
+                    buffer.putLong(value);
+                }
+                if (!buffer.hasRemaining()) written += flush(out, buffer);
+                RunReader reader = readers.get(source);
+                if (reader.next()) {
+                    heap.replaceMin(reader.current, source);
+                } else {
+                    heap.deleteMin();
+                }
+            }
+            written += flush(out, buffer);
+        } finally {
+            for (RunReader reader : readers) reader.close();
+        }
+        return written;
+    }
+
+    private static long flush(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        long bytes = buffer.remaining();
+        while (buffer.hasRemaining()) out.write(buffer);
+        buffer.clear();
+        return bytes;
+    }
+}
@@ -0,0 +1,61 @@
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates a file of random longs, sorts it with {@link ExternalSort} and checks
+ * that the output is sorted.
+ *
+ * Usage: {@code java ExternalSortBenchmark [fileMB] [memoryMB] [bufferKB] [tempDir]},
+ * by default a 1024 MB file with a 64 MB memory budget and 64 KB buffers.
+ */
+public class ExternalSortBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        long fileBytes = (args.length > 0 ? Long.parseLong(args[0]) : 1024) << 20;
+        long memoryBudget = (args.length > 1 ? Long.parseLong(args[1]) : 64) << 20;
+        int bufferBytes = (args.length > 2 ? Integer.parseInt(args[2]) : 64) << 10;
+        Path tempDir = Path.of(args.length > 3 ? args[3] : System.getProperty("java.io.tmpdir"));
+
+        Path input = Files.createTempFile(tempDir, "input", ".bin");
+        Path output = Files.createTempFile(tempDir, "output", ".bin");
+        try {
+            long count = fileBytes / Long.BYTES;
+            Random random = new Random(1l);
+            long start = System.nanoTime();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(input), 1 << 16))) {
+                for (long i = 0; i < count; i++) out.writeLong(random.nextLong());
+            }
+            System.out.printf("Generated %,d longs in %.1f s%n", count, (System.nanoTime() - start) / 1e9);
+
+            ExternalSort sort = new ExternalSort(Long.BYTES, memoryBudget, bufferBytes, tempDir);
+            start = System.nanoTime();
+            ExternalSort.Stats stats = sort.sort(input, output);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Sorted %,d MB with a %,d MB budget in %.1f s (%.1f MB/s)%n",
+                    fileBytes >> 20, memoryBudget >> 20, seconds, (fileBytes >> 20) / seconds);
+            System.out.println(stats);
+
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(output), 1 << 16))) {
+                long previous = Long.MIN_VALUE;
+                for (long i = 0; i < count; i++) {
+                    long value = in.readLong();
+                    if (value < previous) {
+                        System.out.println("Error: output is not sorted at element " + i);
+                        break;
+                    }
+                    previous = value;
+                }
+                if (in.read() != -1) System.out.println("Error: output is longer than the input");
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe d-ary min-heap with one lock per node (Hunt et al., 1996).
+ * A short global lock only guards the size; sifting locks at most a parent and
+ * its children, so adds and deleteMins on different paths run in parallel.
+ *
+ * While an add sifts its element up, the node is tagged as busy and owned by
+ * the adding thread. A deleteMin may move that element up past the adder, so
+ * the adder follows it upwards until it finds it again or reaches the root.
+ * Locks are always taken in ascending index order, which rules out deadlocks.
+ *
+ * @param <T> Type of objects stored in the heap.
+ */
+public class FineGrainedDaryHeap<T extends Comparable<T>> implements ConcurrentPriorityQueue<T> {
+    private static final int EMPTY = 0;
+    private static final int AVAILABLE = 1;
+    private static final int BUSY = 2;
+
+    private static class Node<T> {
+        final ReentrantLock lock = new ReentrantLock();
+        T element;
+        int tag = EMPTY;
+        Thread owner;
+
+        void lock() {
+            lock.lock();
+        }
+
+        void unlock() {
+            lock.unlock();
+        }
+
+        boolean isOwnedBy(Thread thread) {
+            return tag == BUSY && owner == thread;
+        }
+    }
+
+    private final ReentrantLock sizeLock = new ReentrantLock();
+    private final Node<T>[] nodes;
+    private final int d;
+    private int size;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public FineGrainedDaryHeap(int d, int capacity) {
+        if (d < 2) throw new IllegalArgumentException("d must be at least 2");
+        this.d = d;
+        this.nodes = (Node<T>[]) new Node[capacity];
+        for (int i = 0; i < capacity; i++) {
+            nodes[i] = new Node<>();
+        }
+    }
+
+    private void swap(int i, int j) {
+        Node<T> a = nodes[i];
+        Node<T> b = nodes[j];
+        T element = a.element;
+        int tag = a.tag;
+        Thread owner = a.owner;
+        a.element = b.element;
+        a.tag = b.tag;
+        a.owner = b.owner;
+        b.element = element;
+        b.tag = tag;
+        b.owner = owner;
+    }
+
+    public void add(T element) {
+        Thread me = Thread.currentThread();
+        sizeLock.lock();
+        if (size == nodes.length) {
+            sizeLock.unlock();
+            throw new IllegalStateException("heap is full");
+        }
+        int child = size++;
+        Node<T> node = nodes[child];
+        node.lock();
+        node.element = element;
+        node.tag = BUSY;
+        node.owner = me;
+        sizeLock.unlock();
+        node.unlock();
+
+        while (child > 0) {
+            int parent = (child - 1) / d;
+            int current = child;
+            nodes[parent].lock();
+            nodes[current].lock();
+            try {
+                if (nodes[parent].tag == AVAILABLE && nodes[current].isOwnedBy(me)) {
+                    if (nodes[current].element.compareTo(nodes[parent].element) < 0) {
+                        swap(current, parent);
+                        child = parent;
+                    } else {
+                        nodes[current].tag = AVAILABLE;
+                        nodes[current].owner = null;
+                        return;
+                    }
+                } else if (!nodes[current].isOwnedBy(me)) {
+                    child = parent; // a deleteMin moved our element up
+                }
+                // otherwise the parent is still busy with another add; try again
+            } finally {
+                nodes[current].unlock();
+                nodes[parent].unlock();
+            }
+        }
+
+        Node<T> root = nodes[0];
+        root.lock();
+        if (root.isOwnedBy(me)) {
+            root.tag = AVAILABLE;
+            root.owner = null;
+        }
+        root.unlock();
+    }
+
+    public void addAll(Collection<? extends T> elements) {
+        for (T element : elements) {
+            add(element);
+        }
+    }
+
+    public T deleteMin() {
+        sizeLock.lock();
+        if (size == 0) {
+            sizeLock.unlock();
+            return null;
+        }
+        int bottom = --size;
+        Node<T> root = nodes[0];
+        root.lock();
+        nodes[bottom].lock();
+        sizeLock.unlock();
+
+        T min = root.element;
+        root.element = null;
+        root.tag = EMPTY;
+        root.owner = null;
+        swap(bottom, 0);
+        nodes[bottom].unlock();
+        if (root.tag == EMPTY) { // the root was the last element
+            root.unlock();
+            return min;
+        }
+        // The adder of a busy bottom element will find it gone and stop looking.
+        root.tag = AVAILABLE;
+        root.owner = null;
+
+        int parent = 0;
+        while (true) {
+            int firstChild = d * parent + 1;
+            if (firstChild >= nodes.length) break;
+            int lastChild = Math.min(firstChild + d, nodes.length);
+            int smallest = -1;
+            for (int child = firstChild; child < lastChild; child++) {
+                Node<T> node = nodes[child];
+                node.lock();
+                if (node.tag != EMPTY && (smallest < 0 || node.element.compareTo(nodes[smallest].element) < 0)) {
+                    if (smallest >= 0) nodes[smallest].unlock();
+                    smallest = child;
+                } else {
+                    node.unlock();
+                }
+            }
+            if (smallest < 0) break;
+            if (nodes[smallest].element.compareTo(nodes[parent].element) >= 0) {
+                nodes[smallest].unlock();
+                break;
+            }
+            swap(parent, smallest);
+            nodes[parent].unlock();
+            parent = smallest;
+        }
+        nodes[parent].unlock();
+        return min;
+    }
+
+    public int drainMin(int n, List<? super T> result) {
+        int drained = 0;
+        while (drained < n) {
+            T min = deleteMin();
+            if (min == null) break;
+            result.add(min);
+            drained++;
+        }
+        return drained;
+    }
+
+    public int size() {
+        sizeLock.lock();
+        try {
+            return size;
+        } finally {
+            sizeLock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
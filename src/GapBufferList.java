@@ -0,0 +1,199 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Array list with a gap: the free capacity sits at the position of the last change
+ * instead of at the end. An add or delete first moves the gap to its position, with
+ * one System.arraycopy of the elements in between, and then costs O(1). Edits at
+ * clustered positions, like typing in a text editor, therefore only move the
+ * elements between consecutive edits, and get stays O(1).
+ *
+ * Edits at scattered positions move O(n) elements each, like {@link ArrayList};
+ * {@link TieredVectorList} is the better choice for those.
+ */
+public class GapBufferList implements List {
+    private static final int MIN_CAPACITY = 16;
+
+    // The elements are buffer[0, gapStart) followed by buffer[gapEnd, buffer.length).
+    private int[] buffer;
+    private int gapStart;
+    private int gapEnd;
+
+    public GapBufferList() {
+        this(MIN_CAPACITY);
+    }
+
+    public GapBufferList(int initialCapacity) {
+        if (initialCapacity < 0) throw new IllegalArgumentException("illegal capacity " + initialCapacity);
+        this.buffer = new int[Math.max(initialCapacity, MIN_CAPACITY)];
+        this.gapStart = 0;
+        this.gapEnd = buffer.length;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int size() {
+        return buffer.length - (gapEnd - gapStart);
+    }
+
+    /** Position of the gap, that is of the next add without moving it. */
+    public int getGapPosition() {
+        return gapStart;
+    }
+
+    private void moveGap(int pos) {
+        if (pos < gapStart) {
+            int count = gapStart - pos;
+            System.arraycopy(buffer, pos, buffer, gapEnd - count, count);
+            gapStart -= count;
+            gapEnd -= count;
+        } else if (pos > gapStart) {
+            int count = pos - gapStart;
+            System.arraycopy(buffer, gapEnd, buffer, gapStart, count);
+            gapStart += count;
+            gapEnd += count;
+        }
+    }
+
+    /**
+     * Copies the elements into a new buffer of the given capacity with the gap at
+     * pos, which moves every element at most once.
+     */
+    private void reallocate(int capacity, int pos) {
+        int size = size();
+        int[] newBuffer = new int[capacity];
+        int newGapEnd = capacity - (size - pos);
+        if (pos <= gapStart) {
+            System.arraycopy(buffer, 0, newBuffer, 0, pos);
+            System.arraycopy(buffer, pos, newBuffer, newGapEnd, gapStart - pos);
+            System.arraycopy(buffer, gapEnd, newBuffer, newGapEnd + gapStart - pos, buffer.length - gapEnd);
+        } else {
+            int before = pos - gapStart;
+            System.arraycopy(buffer, 0, newBuffer, 0, gapStart);
+            System.arraycopy(buffer, gapEnd, newBuffer, gapStart, before);
+            System.arraycopy(buffer, gapEnd + before, newBuffer, newGapEnd, buffer.length - gapEnd - before);
+        }
+        buffer = newBuffer;
+        gapStart = pos;
+        gapEnd = newGapEnd;
+    }
+
+    public void add(int element) {
+        add(size(), element);
+    }
+
+    public void add(int pos, int element) {
+        if (pos < 0 || pos > size()) throw new IndexOutOfBoundsException(pos);
+        if (gapStart == gapEnd) {
+            if (buffer.length == Integer.MAX_VALUE - 8) throw new OutOfMemoryError("list is full");
+            reallocate((int) Math.min(2L * buffer.length, Integer.MAX_VALUE - 8), pos);
+        } else {
+            moveGap(pos);
+        }
+        buffer[gapStart++] = element;
+    }
+
+    /** Inserts all elements before pos with at most one gap move. */
+    public void addAll(int pos, int[] elements) {
+        int size = size();
+        if (pos < 0 || pos > size) throw new IndexOutOfBoundsException(pos);
+        if (gapEnd - gapStart < elements.length) {
+            long capacity = Math.max(2L * buffer.length, (long) size + elements.length);
+            if (capacity > Integer.MAX_VALUE - 8) throw new OutOfMemoryError("list would be too large");
+            reallocate((int) capacity, pos);
+        } else {
+            moveGap(pos);
+        }
+        System.arraycopy(elements, 0, buffer, gapStart, elements.length);
+        gapStart += elements.length;
+    }
+
+    public void delete(int pos) {
+        int size = size();
+        if (pos < 0 || pos >= size) throw new IndexOutOfBoundsException(pos);
+        if (size - 1 < buffer.length / 4 && buffer.length > MIN_CAPACITY) {
+            reallocate(Math.max(buffer.length / 2, MIN_CAPACITY), pos);
+        } else {
+            moveGap(pos);
+        }
+        gapEnd++;
+    }
+
+    public int get(int pos) {
+        if (pos < 0 || pos >= size()) throw new IndexOutOfBoundsException(pos);
+        return pos < gapStart ? buffer[pos] : buffer[pos + gapEnd - gapStart];
+    }
+
+    public void set(int pos, int element) {
+        if (pos < 0 || pos >= size()) throw new IndexOutOfBoundsException(pos);
+        buffer[pos < gapStart ? pos : pos + gapEnd - gapStart] = element;
+    }
+
+    public void clear() {
+        gapStart = 0;
+        gapEnd = buffer.length;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < gapStart; i++) action.accept(buffer[i]);
+        for (int i = gapEnd; i < buffer.length; i++) action.accept(buffer[i]);
+    }
+
+    public IntStream stream() {
+        return IntStream.concat(Arrays.stream(buffer, 0, gapStart), Arrays.stream(buffer, gapEnd, buffer.length));
+    }
+
+    public int indexOf(int element) {
+        for (int i = 0; i < gapStart; i++) {
+            if (buffer[i] == element) return i;
+        }
+        for (int i = gapEnd; i < buffer.length; i++) {
+            if (buffer[i] == element) return i - (gapEnd - gapStart);
+        }
+        return -1;
+    }
+
+    /** Adds through the iterator leave the gap at the cursor, so they cost O(1) each. */
+    public ListIterator listIterator(int pos) {
+        if (pos < 0 || pos > size()) throw new IndexOutOfBoundsException(pos);
+        return new ListIterator() {
+            private int cursor = pos;
+            private int lastReturned = -1;
+
+            public boolean hasNext() {
+                return cursor < size();
+            }
+
+            public int nextInt() {
+                if (cursor >= size()) throw new NoSuchElementException();
+                lastReturned = cursor++;
+                return get(lastReturned);
+            }
+
+            public int nextIndex() {
+                return cursor;
+            }
+
+            public void add(int element) {
+                GapBufferList.this.add(cursor++, element);
+                lastReturned = -1;
+            }
+
+            public void remove() {
+                if (lastReturned < 0) throw new IllegalStateException();
+                delete(lastReturned);
+                cursor = lastReturned;
+                lastReturned = -1;
+            }
+
+            public void set(int element) {
+                if (lastReturned < 0) throw new IllegalStateException();
+                GapBufferList.this.set(lastReturned, element);
+            }
+        };
+    }
+}
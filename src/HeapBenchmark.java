@@ -0,0 +1,191 @@
+import java.util.Random;
+
+/**
+ * Compares the generic {@link DaryHeap} with its primitive counterparts.
+ * Each operation adds n random keys and then removes them all again.
+ *
+ * Usage: {@code java HeapBenchmark [n]} for the boxed/primitive comparison, or
+ * {@code java HeapBenchmark layout [n...]} to compare the cache-aligned layout
+ * against the plain array heap for each given size (default 10^6 and 10^7).
+ *
+ * {@code java HeapBenchmark topk [n]} keeps the k smallest of a stream of n random
+ * ints (default 10^9) for k = 10 to 10^6 with {@link TopK}, boxed and primitive,
+ * and with a heap that adds every element and deletes the maximum when it holds
+ * more than k. {@code java HeapBenchmark merge [n]} merges n ints (default 10^7)
+ * from k sorted arrays with {@link MergeIterator.Ints} and with deleteMin + add.
+ */
+public class HeapBenchmark {
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("layout")) {
+            if (args.length == 1) {
+                layout(1_000_000);
+                layout(10_000_000);
+            }
+            for (int i = 1; i < args.length; i++) {
+                layout(Integer.parseInt(args[i]));
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("topk")) {
+            topK(args.length > 1 ? Long.parseLong(args[1]) : 1_000_000_000L);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("merge")) {
+            merge(args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000);
+            return;
+        }
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(1l);
+        int[] intKeys = new int[n];
+        long[] longKeys = new long[n];
+        for (int i = 0; i < n; i++) {
+            intKeys[i] = random.nextInt();
+            longKeys[i] = random.nextLong();
+        }
+
+        System.out.println("add + deleteMin of " + n + " random keys");
+        for (int d : new int[] { 2, 4, 8 }) {
+            Bench.run("DaryHeap<Integer>          d=" + d, () -> {
+                DaryHeap<Integer> heap = new DaryHeap<>(d);
+                for (int key : intKeys) heap.add(key);
+                long sum = 0;
+                while (!heap.isEmpty()) sum += heap.deleteMin();
+                return sum;
+            });
+            IntDaryHeap intHeap = new IntDaryHeap(d, n);
+            Bench.run("IntDaryHeap                d=" + d, () -> {
+                for (int key : intKeys) intHeap.add(key);
+                long sum = 0;
+                while (!intHeap.isEmpty()) sum += intHeap.deleteMin();
+                return sum;
+            });
+            Bench.run("DaryHeap<Long>             d=" + d, () -> {
+                DaryHeap<Long> heap = new DaryHeap<>(d);
+                for (long key : longKeys) heap.add(key);
+                long sum = 0;
+                while (!heap.isEmpty()) sum += heap.deleteMin();
+                return sum;
+            });
+            LongDaryHeap longHeap = new LongDaryHeap(d, n);
+            Bench.run("LongDaryHeap               d=" + d, () -> {
+                for (long key : longKeys) longHeap.add(key);
+                long sum = 0;
+                while (!longHeap.isEmpty()) sum += longHeap.deleteMin();
+                return sum;
+            });
+            LongPayloadDaryHeap payloadHeap = new LongPayloadDaryHeap(d, n);
+            Bench.run("LongPayloadDaryHeap        d=" + d, () -> {
+                for (int i = 0; i < n; i++) payloadHeap.add(longKeys[i], i);
+                long sum = 0;
+                while (!payloadHeap.isEmpty()) sum += payloadHeap.deleteMin();
+                return sum;
+            });
+        }
+    }
+
+    static void layout(int n) {
+        Random random = new Random(1l);
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = random.nextLong();
+        }
+
+        System.out.println("build + " + n + " x (deleteMin, add) on a heap of " + n + " longs");
+        for (int d : new int[] { 2, 4, 8, 16 }) {
+            LongDaryHeap plain = new LongDaryHeap(d, n);
+            Bench.run("LongDaryHeap               d=" + d, 2, 5, () -> {}, () -> {
+                plain.build(keys);
+                long sum = 0;
+                for (long key : keys) {
+                    sum += plain.deleteMin();
+                    plain.add(key);
+                }
+                return sum;
+            });
+            CacheAlignedDaryHeap aligned = new CacheAlignedDaryHeap(d, n);
+            Bench.run("CacheAlignedDaryHeap       d=" + d, 2, 5, () -> {}, () -> {
+                aligned.build(keys);
+                long sum = 0;
+                for (long key : keys) {
+                    sum += aligned.deleteMin();
+                    aligned.add(key);
+                }
+                return sum;
+            });
+        }
+    }
+
+    /** Next state of a xorshift generator, so that the stream doesn't have to be stored. */
+    private static long xorshift(long x) {
+        x ^= x << 13;
+        x ^= x >>> 7;
+        return x ^ (x << 17);
+    }
+
+    static void topK(long n) {
+        System.out.println("k smallest of " + n + " random ints");
+        // One pass over the stream is long enough for the JIT, so there is no warmup.
+        for (int k = 10; k <= 1_000_000; k *= 10) {
+            int kk = k;
+            Bench.run(String.format("TopK<Integer>              k=%,d", k), 0, 1, () -> {}, () -> {
+                TopK<Integer> top = new TopK<>(kk);
+                long x = 1;
+                for (long i = 0; i < n; i++) {
+                    x = xorshift(x);
+                    top.offer((int) (x >>> 32));
+                }
+                return top.max();
+            });
+            Bench.run(String.format("TopK.Ints                  k=%,d", k), 0, 1, () -> {}, () -> {
+                TopK.Ints top = new TopK.Ints(kk);
+                long x = 1;
+                for (long i = 0; i < n; i++) {
+                    x = xorshift(x);
+                    top.offer((int) (x >>> 32));
+                }
+                return top.max();
+            });
+            Bench.run(String.format("IntDaryHeap add + deleteMin k=%,d", k), 0, 1, () -> {}, () -> {
+                // max-heap through the complements, see TopK.Ints
+                IntDaryHeap heap = new IntDaryHeap(4, kk + 1);
+                long x = 1;
+                for (long i = 0; i < n; i++) {
+                    x = xorshift(x);
+                    heap.add(~(int) (x >>> 32));
+                    if (heap.size() > kk) heap.deleteMin();
+                }
+                return ~heap.min();
+            });
+        }
+    }
+
+    static void merge(int n) {
+        Random random = new Random(1l);
+        System.out.println("merge of " + n + " ints from k sorted arrays");
+        for (int k = 10; k <= 1_000_000 && k <= n; k *= 10) {
+            int[][] arrays = new int[k][];
+            for (int i = 0; i < k; i++) {
+                arrays[i] = random.ints(n / k).sorted().toArray();
+            }
+            Bench.run(String.format("MergeIterator.Ints         k=%,d", k), 1, 3, () -> {}, () -> {
+                MergeIterator.Ints merged = new MergeIterator.Ints(arrays);
+                long sum = 0;
+                while (merged.hasNext()) sum += merged.nextInt();
+                return sum;
+            });
+            Bench.run(String.format("deleteMin + add            k=%,d", k), 1, 3, () -> {}, () -> {
+                LongPayloadDaryHeap heap = new LongPayloadDaryHeap(4, arrays.length);
+                int[] positions = new int[arrays.length];
+                for (int i = 0; i < arrays.length; i++) heap.add(arrays[i][0], i);
+                long sum = 0;
+                while (!heap.isEmpty()) {
+                    sum += heap.minKey();
+                    int source = heap.deleteMin();
+                    if (++positions[source] < arrays[source].length) heap.add(arrays[source][positions[source]], source);
+                }
+                return sum;
+            });
+        }
+    }
+}
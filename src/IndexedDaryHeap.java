@@ -0,0 +1,174 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A d-ary min-heap of long keys addressed by integer handles in the range
+ * [0, capacity). Next to the heap array it keeps the position of every handle,
+ * so a handle's key can be changed or the handle removed in O(d log_d n)
+ * without searching the heap. Typical handles are vertex ids in Dijkstra's
+ * or Prim's algorithm.
+ */
+public class IndexedDaryHeap {
+    private final int[] heap;      // heap position -> handle
+    private final int[] positions; // handle -> heap position, -1 if not contained
+    private final long[] keys;     // handle -> key
+    private int size;
+    private final int d;
+
+    public IndexedDaryHeap(int d, int capacity) {
+        if (d < 2) throw new IllegalArgumentException("d must be at least 2");
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new long[capacity];
+        this.size = 0;
+        this.d = d;
+        Arrays.fill(positions, -1);
+    }
+
+    protected void swap(int i, int j) {
+        int handleI = heap[i];
+        int handleJ = heap[j];
+        heap[j] = handleI;
+        heap[i] = handleJ;
+        positions[handleI] = j;
+        positions[handleJ] = i;
+    }
+
+    protected void siftDown(int i) {
+        while (true) {
+            int firstChild = d * i + 1;
+            if (firstChild >= size) return;
+            int lastChild = Math.min(firstChild + d, size);
+            int smallest = i;
+            for (int child = firstChild; child < lastChild; child++) {
+                if (keys[heap[child]] < keys[heap[smallest]]) smallest = child;
+            }
+            if (smallest == i) return;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    protected void siftUp(int i) {
+        while (i > 0) {
+            int parentPos = (i - 1) / d;
+            if (keys[heap[parentPos]] <= keys[heap[i]]) return;
+            swap(i, parentPos);
+            i = parentPos;
+        }
+    }
+
+    private void checkHandle(int handle) {
+        if (handle < 0 || handle >= positions.length) throw new IndexOutOfBoundsException(handle);
+    }
+
+    private int positionOf(int handle) {
+        checkHandle(handle);
+        int pos = positions[handle];
+        if (pos < 0) throw new NoSuchElementException("handle " + handle + " is not in the heap");
+        return pos;
+    }
+
+    public boolean contains(int handle) {
+        checkHandle(handle);
+        return positions[handle] >= 0;
+    }
+
+    public void add(int handle, long key) {
+        checkHandle(handle);
+        if (positions[handle] >= 0) throw new IllegalArgumentException("handle " + handle + " is already in the heap");
+        heap[size] = handle;
+        positions[handle] = size;
+        keys[handle] = key;
+        size++;
+        siftUp(size - 1);
+    }
+
+    public long keyOf(int handle) {
+        positionOf(handle);
+        return keys[handle];
+    }
+
+    public void decreaseKey(int handle, long newKey) {
+        int pos = positionOf(handle);
+        if (newKey > keys[handle]) throw new IllegalArgumentException("new key is greater than the current key");
+        keys[handle] = newKey;
+        siftUp(pos);
+    }
+
+    public void increaseKey(int handle, long newKey) {
+        int pos = positionOf(handle);
+        if (newKey < keys[handle]) throw new IllegalArgumentException("new key is smaller than the current key");
+        keys[handle] = newKey;
+        siftDown(pos);
+    }
+
+    /** Sets the key of a handle, moving it up or down as needed. */
+    public void changeKey(int handle, long newKey) {
+        if (newKey < keyOf(handle)) {
+            decreaseKey(handle, newKey);
+        } else {
+            increaseKey(handle, newKey);
+        }
+    }
+
+    public void remove(int handle) {
+        int pos = positionOf(handle);
+        size--;
+        if (pos != size) {
+            int moved = heap[size];
+            swap(pos, size);
+            siftUp(pos);
+            siftDown(positions[moved]);
+        }
+        positions[handle] = -1;
+    }
+
+    public int minHandle() {
+        if (size == 0) throw new NoSuchElementException();
+        return heap[0];
+    }
+
+    public long minKey() {
+        if (size == 0) throw new NoSuchElementException();
+        return keys[heap[0]];
+    }
+
+    /** Removes the handle with the smallest key and returns it. */
+    public int deleteMin() {
+        if (size == 0) throw new NoSuchElementException();
+        int min = heap[0];
+        size--;
+        swap(0, size);
+        positions[min] = -1;
+        siftDown(0);
+        return min;
+    }
+
+    protected void check() {
+        for (int i = 1; i < size; i++) {
+            int parent = (i - 1) / d;
+            if (keys[heap[parent]] > keys[heap[i]]) {
+                System.err.println("Min-Heap Error: Parent " + keys[heap[parent]] + " is greater than child " + keys[heap[i]]);
+            }
+            if (positions[heap[i]] != i) {
+                System.err.println("Position Error: Handle " + heap[i] + " is at " + i + " but recorded at " + positions[heap[i]]);
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * Compares two ints like a {@link java.util.Comparator}, but without boxing them.
+ */
+@FunctionalInterface
+public interface IntComparator {
+    public int compare(int a, int b);
+}
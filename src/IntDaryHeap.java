@@ -0,0 +1,147 @@
+import java.util.NoSuchElementException;
+
+/**
+ * A d-ary min-heap of primitive ints backed by a plain array.
+ * Works like {@link DaryHeap}, but doesn't box its elements, so adding and
+ * removing doesn't allocate (apart from growing the array).
+ */
+public class IntDaryHeap {
+    private int[] elements;
+    private int size;
+    private final int d;
+
+    public IntDaryHeap(int d) {
+        this(d, 16);
+    }
+
+    public IntDaryHeap(int d, int initialCapacity) {
+        if (d < 2) throw new IllegalArgumentException("d must be at least 2");
+        this.elements = new int[Math.max(1, initialCapacity)];
+        this.size = 0;
+        this.d = d;
+    }
+
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(minCapacity, 2 * elements.length);
+        int[] newElements = new int[newCapacity];
+        System.arraycopy(elements, 0, newElements, 0, size);
+        elements = newElements;
+    }
+
+    // Moves a hole down from i until value fits, instead of swapping at every level.
+    protected void siftDown(int i, int value) {
+        while (true) {
+            int firstChild = d * i + 1;
+            if (firstChild >= size) break;
+            int lastChild = Math.min(firstChild + d, size);
+            int smallest = firstChild;
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (elements[child] < elements[smallest]) smallest = child;
+            }
+            if (elements[smallest] >= value) break;
+            elements[i] = elements[smallest];
+            i = smallest;
+        }
+        elements[i] = value;
+    }
+
+    protected void siftUp(int i, int value) {
+        while (i > 0) {
+            int parentPos = (i - 1) / d;
+            if (elements[parentPos] <= value) break;
+            elements[i] = elements[parentPos];
+            i = parentPos;
+        }
+        elements[i] = value;
+    }
+
+    public int min() {
+        if (size == 0) throw new NoSuchElementException();
+        return elements[0];
+    }
+
+    public int deleteMin() {
+        if (size == 0) throw new NoSuchElementException();
+        int min = elements[0];
+        size--;
+        if (size > 0) siftDown(0, elements[size]);
+        return min;
+    }
+
+    /** Replaces the minimum with element and returns the old minimum, with a single siftDown. */
+    public int replaceMin(int element) {
+        if (size == 0) throw new NoSuchElementException();
+        int min = elements[0];
+        siftDown(0, element);
+        return min;
+    }
+
+    public void build(int[] array) {
+        if (array.length > elements.length) elements = new int[array.length];
+        System.arraycopy(array, 0, elements, 0, array.length);
+        size = array.length;
+        for (int i = (size - 2) / d; i >= 0; i--) {
+            siftDown(i, elements[i]);
+        }
+    }
+
+    public void add(int element) {
+        if (size == elements.length) grow(size + 1);
+        size++;
+        siftUp(size - 1, element);
+    }
+
+    /** Returns all elements smaller than the given value in level order. */
+    public int[] smallerThan(int element) {
+        // The result doubles as the BFS queue: every index in it has already been visited.
+        int[] indices = new int[size];
+        int count = 0;
+
+        if (size == 0 || elements[0] >= element) return new int[0];
+        indices[count++] = 0;
+        for (int head = 0; head < count; head++) {
+            int firstChild = d * indices[head] + 1;
+            int lastChild = Math.min(firstChild + d, size);
+            for (int child = firstChild; child < lastChild; child++) {
+                if (elements[child] < element) indices[count++] = child;
+            }
+        }
+
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = elements[indices[i]];
+        }
+        return result;
+    }
+
+    protected void check() {
+        for (int i = 1; i < size; i++) {
+            int parent = (i - 1) / d;
+            if (elements[parent] > elements[i]) {
+                System.err.println("Min-Heap Error: Parent " + elements[parent] + " is greater than child " + elements[i]);
+            }
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(elements[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
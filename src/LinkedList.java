@@ -1,5 +1,10 @@
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
 public class LinkedList implements List {
-    
+    private static final Metrics.Scope METRICS = Metrics.scope("LinkedList");
+    private static final Metrics.Histogram GET = METRICS.histogram("get");
+
     private class Node {
         int element;
         Node next;
@@ -7,6 +12,7 @@ public class LinkedList implements List {
         Node(int element) {
             this.element = element;
             this.next = null;
+            if (Metrics.ENABLED) METRICS.count(Metrics.Event.ALLOCATIONS);
         }
     }
 
@@ -14,6 +20,12 @@ public class LinkedList implements List {
     private Node head;
     private Node tail;
 
+    // The node found by the last positional access. Accesses at or after cursorPos
+    // walk from here instead of from the head, which makes a loop over get(i) O(n).
+    // Changes at or before cursorPos reset it to null.
+    private Node cursor;
+    private int cursorPos;
+
     public LinkedList() {
         this.numElements = 0;
         this.head = null;
@@ -32,6 +44,24 @@ public class LinkedList implements List {
         return numElements;
     }
 
+    /** The node at a valid position, walking from the cursor if it is not past pos. */
+    private Node node(int pos) {
+        if (pos == numElements - 1) return tail;
+        Node iterator = head;
+        int i = 0;
+        if (cursor != null && cursorPos <= pos) {
+            iterator = cursor;
+            i = cursorPos;
+        }
+        if (Metrics.ENABLED) METRICS.count(Metrics.Event.READS, pos - i);
+        for (; i < pos; i++) {
+            iterator = iterator.next;
+        }
+        cursor = iterator;
+        cursorPos = pos;
+        return iterator;
+    }
+
     public void add(int element) {
         Node node = new Node(element);
 
@@ -45,38 +75,59 @@ public class LinkedList implements List {
     }
 
     public void add(int pos, int element) {
-        Node node = new Node(element);
         if (pos < 0 || pos > numElements) throw new IndexOutOfBoundsException(pos);
+        Node node = new Node(element);
         if (pos == 0) {
             node.next = head;
             head = node;
+            if (tail == null) tail = node;
+            cursor = null;
         } else if (pos == numElements) {
             tail.next = node;
             tail = node;
         } else {
-            Node iterator = head;
-            for (int i = 0; i < pos-1; i++) {
-                iterator = iterator.next;
-            }
-            node.next = iterator.next;
-            iterator.next = node;
+            Node previous = node(pos - 1);
+            node.next = previous.next;
+            previous.next = node;
         }
         numElements++;
     }
 
+    /** Inserts all elements before pos: they are linked up first and then spliced in. */
+    public void addAll(int pos, int[] elements) {
+        if (pos < 0 || pos > numElements) throw new IndexOutOfBoundsException(pos);
+        if (elements.length == 0) return;
+        Node first = new Node(elements[0]);
+        Node last = first;
+        for (int i = 1; i < elements.length; i++) {
+            last.next = new Node(elements[i]);
+            last = last.next;
+        }
+        if (pos == 0) {
+            last.next = head;
+            head = first;
+            cursor = null;
+        } else {
+            Node previous = node(pos - 1);
+            last.next = previous.next;
+            previous.next = first;
+        }
+        if (last.next == null) tail = last;
+        numElements += elements.length;
+    }
+
     public void delete(int pos) {
         if (posOutOfBounds(pos)) throw new IndexOutOfBoundsException(pos);
         if (pos == 0) {
             head = head.next;
+            if (head == null) tail = null;
+            cursor = null;
         } else {
-            Node iterator = head;
-            for (int i = 0; i < pos-1; i++) {
-                iterator = iterator.next;
-            }
-            iterator.next = iterator.next.next;
+            Node previous = node(pos - 1);
+            previous.next = previous.next.next;
 
             if (pos == numElements-1) {
-                tail = iterator;
+                tail = previous;
             }
         }
         numElements--;
@@ -84,10 +135,99 @@ public class LinkedList implements List {
 
     public int get(int pos) {
         if (posOutOfBounds(pos)) throw new IndexOutOfBoundsException(pos);
-        Node iterator = head;
-        for (int i = 0; i < pos; i++) {
-            iterator = iterator.next;
+        long start = Metrics.start();
+        int element = node(pos).element;
+        if (Metrics.ENABLED) GET.record(start);
+        return element;
+    }
+
+    public void clear() {
+        head = null;
+        tail = null;
+        cursor = null;
+        numElements = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        if (Metrics.ENABLED) METRICS.count(Metrics.Event.READS, numElements);
+        for (Node node = head; node != null; node = node.next) {
+            action.accept(node.element);
         }
-        return iterator.element;
+    }
+
+    public int indexOf(int element) {
+        int pos = 0;
+        for (Node node = head; node != null; node = node.next, pos++) {
+            if (node.element == element) break;
+        }
+        if (Metrics.ENABLED) METRICS.count(Metrics.Event.READS, Math.min(pos + 1, numElements));
+        return pos < numElements ? pos : -1;
+    }
+
+    public ListIterator listIterator(int pos) {
+        if (pos < 0 || pos > numElements) throw new IndexOutOfBoundsException(pos);
+        return new ListIterator() {
+            // previous is the node before the cursor (null at the head), and
+            // beforeLast the node before lastReturned, which remove() relinks.
+            private Node previous = pos == 0 ? null : node(pos - 1);
+            private Node lastReturned;
+            private Node beforeLast;
+            private int index = pos;
+
+            public boolean hasNext() {
+                return index < numElements;
+            }
+
+            public int nextInt() {
+                if (index >= numElements) throw new NoSuchElementException();
+                if (Metrics.ENABLED) METRICS.count(Metrics.Event.READS);
+                beforeLast = previous;
+                lastReturned = previous == null ? head : previous.next;
+                previous = lastReturned;
+                index++;
+                return lastReturned.element;
+            }
+
+            public int nextIndex() {
+                return index;
+            }
+
+            public void add(int element) {
+                Node node = new Node(element);
+                if (previous == null) {
+                    node.next = head;
+                    head = node;
+                } else {
+                    node.next = previous.next;
+                    previous.next = node;
+                }
+                if (node.next == null) tail = node;
+                previous = node;
+                lastReturned = null;
+                index++;
+                numElements++;
+                cursor = null;
+            }
+
+            public void remove() {
+                if (lastReturned == null) throw new IllegalStateException();
+                if (beforeLast == null) {
+                    head = lastReturned.next;
+                } else {
+                    beforeLast.next = lastReturned.next;
+                }
+                if (tail == lastReturned) tail = beforeLast;
+                previous = beforeLast;
+                lastReturned = null;
+                index--;
+                numElements--;
+                cursor = null;
+            }
+
+            public void set(int element) {
+                if (lastReturned == null) throw new IllegalStateException();
+                lastReturned.element = element;
+            }
+        };
     }
 }
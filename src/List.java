@@ -1,3 +1,19 @@
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A list of ints. Positional access is only O(1) for some implementations; code
+ * that visits every element should use iterator(), forEach or stream(), which
+ * are O(n) for all of them.
+ *
+ * The default methods are written against listIterator(); implementations
+ * override them where they can do better.
+ */
 public interface List {
     public boolean isEmpty();
     public void add(int element);
@@ -5,4 +21,85 @@ public interface List {
     public void delete(int pos);
     public int get(int pos);
     public int size();
+
+    /** Iterator over the elements in order, without boxing (use nextInt()). */
+    public interface IntIterator extends PrimitiveIterator.OfInt {
+    }
+
+    /**
+     * Forward iterator that can change the list at the cursor. The list must not be
+     * changed other than through the iterator while it is in use.
+     */
+    public interface ListIterator extends IntIterator {
+        /** Position of the element that nextInt() would return. */
+        public int nextIndex();
+
+        /** Inserts an element before the cursor, so that nextInt() is not affected. */
+        public void add(int element);
+
+        /** Removes the element last returned by nextInt(). */
+        @Override
+        public void remove();
+
+        /** Replaces the element last returned by nextInt(). */
+        public void set(int element);
+    }
+
+    /** Iterator positioned before the element at pos (0 <= pos <= size()). */
+    public ListIterator listIterator(int pos);
+
+    public default ListIterator listIterator() {
+        return listIterator(0);
+    }
+
+    public default IntIterator iterator() {
+        return listIterator(0);
+    }
+
+    public default void forEach(IntConsumer action) {
+        iterator().forEachRemaining(action);
+    }
+
+    public default IntStream stream() {
+        Spliterator.OfInt spliterator = Spliterators.spliterator(iterator(), size(), Spliterator.ORDERED);
+        return StreamSupport.intStream(spliterator, false);
+    }
+
+    /** Position of the first occurrence of element, or -1. */
+    public default int indexOf(int element) {
+        IntIterator iterator = iterator();
+        for (int pos = 0; iterator.hasNext(); pos++) {
+            if (iterator.nextInt() == element) return pos;
+        }
+        return -1;
+    }
+
+    public default boolean contains(int element) {
+        return indexOf(element) >= 0;
+    }
+
+    public void clear();
+
+    public default void addAll(int[] elements) {
+        addAll(size(), elements);
+    }
+
+    /** Inserts all elements before pos, in order. */
+    public default void addAll(int pos, int[] elements) {
+        ListIterator iterator = listIterator(pos);
+        for (int element : elements) iterator.add(element);
+    }
+
+    /** Removes every element that matches the filter and returns how many were removed. */
+    public default int removeIf(IntPredicate filter) {
+        int removed = 0;
+        ListIterator iterator = listIterator();
+        while (iterator.hasNext()) {
+            if (filter.test(iterator.nextInt())) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
 }
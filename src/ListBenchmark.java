@@ -0,0 +1,498 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Benchmarks for the {@link List} implementations.
+ *
+ * With "ingest [n]" (the default) it appends n ints (default 10^8) to an
+ * {@link ArrayList}: one add at a time with growth factors 2 and 1.5, after
+ * ensureCapacity, and with addAll in chunks of 4096, against filling a plain int[].
+ * 10^8 ints need a heap of about 2 GB, since the array is copied when it grows.
+ *
+ * With "traversal [n]" it sums n elements (default 10^6) of both lists through
+ * get(i), the iterator, forEach and stream(). For the LinkedList, get(i) walks on
+ * from the node of the previous call, so the loop is O(n) as well.
+ *
+ * With "mutation [n]" it removes every other element with removeIf and with
+ * iterator.remove(), inserts a block of 4096 elements in the middle with addAll and
+ * one by one through an iterator, and inserts after every element through an iterator.
+ * The ArrayList shifts its tail on every iterator change, so those only run for it up
+ * to n = 10^5.
+ *
+ * With "unrolled [n]" it compares the {@link UnrolledLinkedList} with the ArrayList and
+ * the LinkedList on n elements (default 10^7): the heap retained by each list, and
+ * random, sequential and nearby (a random walk in steps of up to 1000) get, add(pos)
+ * and delete(pos). Each list gets as many operations as it can do in about a second.
+ *
+ * With "edits [n]" it replays edit traces on lists of n elements (default 10^6) for
+ * all list types, including the {@link GapBufferList} and {@link TieredVectorList}:
+ * random adds and deletes, clustered ones (typing and backspacing at a cursor that
+ * moves a few positions and sometimes jumps), and append-heavy ones (90% appends).
+ * Lists that are O(n) per edit on a trace replay a shorter prefix of it.
+ *
+ * With "offheap [n]" it appends n ints (default 10^9, a 4 GB file in the temporary
+ * directory) to a {@link MappedIntList} with add and with addAll, and 10^8 to an
+ * ArrayList for comparison, reporting the garbage collections of each. Then it
+ * scans the list, reads random positions and measures how long reopening the file
+ * takes.
+ *
+ * With "producers [n] [maxThreads]" 1, 2, 4, ... maxThreads (default 32) threads
+ * append n ints in total (default 10^7) to a shared list: an ArrayList behind a
+ * lock, one add or one addAll of 64 at a time, against the
+ * {@link ConcurrentAppendList} with add and appendBatch of 64.
+ */
+public class ListBenchmark {
+
+    static final int CHUNK = 4096;
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "ingest";
+        if (mode.equals("ingest")) {
+            ingest(args.length > 1 ? Integer.parseInt(args[1]) : 100_000_000);
+            return;
+        }
+        if (mode.equals("traversal")) {
+            traversal(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+            return;
+        }
+        if (mode.equals("unrolled")) {
+            unrolled(args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000);
+            return;
+        }
+        if (mode.equals("edits")) {
+            edits(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+            return;
+        }
+        if (mode.equals("offheap")) {
+            offHeap(args.length > 1 ? Long.parseLong(args[1]) : 1_000_000_000L);
+            return;
+        }
+        if (mode.equals("producers")) {
+            producers(args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000, args.length > 2 ? Integer.parseInt(args[2]) : 32);
+            return;
+        }
+        if (mode.equals("mutation")) {
+            mutation(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+            return;
+        }
+        throw new IllegalArgumentException("unknown mode " + mode);
+    }
+
+    static void ingest(int n) {
+        int[] chunk = new int[CHUNK];
+        for (int i = 0; i < CHUNK; i++) chunk[i] = i;
+        int warmup = 1;
+        int iterations = 3;
+
+        Bench.run(String.format("int[%,d] fill", n), warmup, iterations, () -> {}, () -> {
+            int[] array = new int[n];
+            for (int i = 0; i < n; i++) array[i] = i;
+            return array[n - 1];
+        });
+        ingestByAdd("add, growth 2", n, warmup, iterations, () -> new ArrayList());
+        ingestByAdd("add, growth 1.5", n, warmup, iterations, () -> new ArrayList(1, 1.5));
+        ingestByAdd("add, new ArrayList(n)", n, warmup, iterations, () -> new ArrayList(n));
+        ingestByAdd("add, ensureCapacity(n)", n, warmup, iterations, () -> {
+            ArrayList list = new ArrayList();
+            list.ensureCapacity(n);
+            return list;
+        });
+        ingestByAddAll("addAll, growth 2", n, chunk, warmup, iterations, () -> new ArrayList());
+        ingestByAddAll("addAll, ensureCapacity(n)", n, chunk, warmup, iterations, () -> {
+            ArrayList list = new ArrayList();
+            list.ensureCapacity(n);
+            return list;
+        });
+    }
+
+    interface Factory {
+        ArrayList create();
+    }
+
+    static void ingestByAdd(String name, int n, int warmup, int iterations, Factory factory) {
+        Bench.run(String.format("ArrayList %-26s x%,d", name, n), warmup, iterations, () -> {}, () -> {
+            ArrayList list = factory.create();
+            for (int i = 0; i < n; i++) list.add(i);
+            return list.size();
+        });
+    }
+
+    static void ingestByAddAll(String name, int n, int[] chunk, int warmup, int iterations, Factory factory) {
+        Bench.run(String.format("ArrayList %-26s x%,d", name, n), warmup, iterations, () -> {}, () -> {
+            ArrayList list = factory.create();
+            for (int i = 0; i < n / chunk.length; i++) list.addAll(chunk);
+            int[] rest = new int[n % chunk.length];
+            list.addAll(rest);
+            return list.size();
+        });
+    }
+
+    static List create(String name) {
+        switch (name) {
+            case "ArrayList": return new ArrayList();
+            case "LinkedList": return new LinkedList();
+            case "UnrolledLinkedList": return new UnrolledLinkedList();
+            case "GapBufferList": return new GapBufferList();
+            case "TieredVectorList": return new TieredVectorList();
+            default: throw new IllegalArgumentException("unknown list " + name);
+        }
+    }
+
+    static List filled(String name, int n) {
+        List list = create(name);
+        for (int i = 0; i < n; i++) list.add(i);
+        return list;
+    }
+
+    /** Heap in use after a full GC. */
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    static void unrolled(int n) {
+        java.util.Random random = new java.util.Random(1);
+        String[] names = { "ArrayList", "UnrolledLinkedList", "LinkedList" };
+        for (String name : names) {
+            long before = usedHeap();
+            List list = filled(name, n);
+            long retained = usedHeap() - before;
+            System.out.printf("%-18s %,d elements retain %,d bytes (%.1f bytes per element)%n",
+                    name, list.size(), retained, (double) retained / n);
+        }
+
+        int[] walk = new int[100_000];
+        for (int i = 1; i < walk.length; i++) {
+            walk[i] = Math.floorMod(walk[i - 1] + random.nextInt(2001) - 1000, n);
+        }
+        for (String name : names) {
+            List list = filled(name, n);
+            // operations far from the last one are O(n) for the LinkedList, and
+            // inserts and deletes O(n) for the ArrayList
+            boolean linked = name.equals("LinkedList");
+            boolean array = name.equals("ArrayList");
+            int far = linked ? 10 : array ? 1_000_000 : 1_000;
+            int shifts = linked ? 10 : array ? 100 : 1_000;
+            int nearby = linked ? 10 : walk.length;
+            int nearbyShifts = linked || array ? 100 : walk.length;
+            int[] positions = new int[Math.max(far, shifts)];
+            for (int i = 0; i < positions.length; i++) positions[i] = random.nextInt(n - 1);
+
+            Bench.run(label(name, "random get", far), 1, 3, () -> {}, () -> {
+                long sum = 0;
+                for (int i = 0; i < far; i++) sum += list.get(positions[i]);
+                return sum;
+            });
+            Bench.run(label(name, "get(i) loop", n), 1, 3, () -> {}, () -> {
+                long sum = 0;
+                for (int i = 0; i < n; i++) sum += list.get(i);
+                return sum;
+            });
+            Bench.run(label(name, "nearby get", nearby), 1, 3, () -> {}, () -> {
+                long sum = 0;
+                for (int i = 0; i < nearby; i++) sum += list.get(walk[i]);
+                return sum;
+            });
+            // every add is undone by a delete, so the size stays at n
+            Bench.run(label(name, "random add(pos) + delete(pos)", shifts), 1, 3, () -> {}, () -> {
+                for (int i = 0; i < shifts; i++) list.add(positions[i], i);
+                for (int i = shifts - 1; i >= 0; i--) list.delete(positions[i]);
+                return list.size();
+            });
+            Bench.run(label(name, "nearby add(pos) + delete(pos)", nearbyShifts), 1, 3, () -> {}, () -> {
+                for (int i = 0; i < nearbyShifts; i++) list.add(walk[i], i);
+                for (int i = nearbyShifts - 1; i >= 0; i--) list.delete(walk[i]);
+                return list.size();
+            });
+        }
+    }
+
+    static String label(String list, String operation, int n) {
+        return String.format("%-18s %-30s x%,d", list, operation, n);
+    }
+
+    static void traversal(int n) {
+        for (String name : new String[] { "ArrayList", "LinkedList" }) {
+            List list = filled(name, n);
+            Bench.run(label(name, "get(i) loop", n), () -> {
+                long sum = 0;
+                for (int i = 0; i < list.size(); i++) sum += list.get(i);
+                return sum;
+            });
+            Bench.run(label(name, "iterator", n), () -> {
+                long sum = 0;
+                List.IntIterator iterator = list.iterator();
+                while (iterator.hasNext()) sum += iterator.nextInt();
+                return sum;
+            });
+            Bench.run(label(name, "forEach", n), () -> {
+                long[] sum = new long[1];
+                list.forEach(element -> sum[0] += element);
+                return sum[0];
+            });
+            Bench.run(label(name, "stream().sum", n), () -> list.stream().asLongStream().sum());
+        }
+    }
+
+    interface MappedTask {
+        long run(MappedIntList list) throws IOException;
+    }
+
+    /** Runs the task on a new temporary list, which is deleted afterwards. */
+    static long withTemporaryList(MappedTask task) {
+        try (MappedIntList list = new MappedIntList()) {
+            return task.run(list);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void offHeap(long n) {
+        int[] chunk = new int[CHUNK];
+        for (int i = 0; i < CHUNK; i++) chunk[i] = i;
+        int heapN = (int) Math.min(n, 100_000_000);
+        Bench.run(label("ArrayList", "add", heapN), 1, 3, () -> {}, () -> {
+            ArrayList list = new ArrayList();
+            for (int i = 0; i < heapN; i++) list.add(i);
+            return list.size();
+        });
+        Bench.run(label("MappedIntList", "add", heapN), 1, 3, () -> {}, () -> withTemporaryList(list -> {
+            for (int i = 0; i < heapN; i++) list.add(i);
+            return list.longSize();
+        }));
+        Bench.run(String.format("%-18s %-30s x%,d", "MappedIntList", "add", n), 0, 1, () -> {}, () -> withTemporaryList(list -> {
+            for (long i = 0; i < n; i++) list.add((int) i);
+            return list.longSize();
+        }));
+        Bench.run(String.format("%-18s %-30s x%,d", "MappedIntList", "addAll(" + CHUNK + ")", n), 0, 1, () -> {}, () -> withTemporaryList(list -> {
+            list.ensureCapacity(n);
+            for (long i = 0; i < n; i += CHUNK) {
+                list.addAll(chunk);
+            }
+            return list.longSize();
+        }));
+
+        try {
+            Path file = Files.createTempFile("list", ".ints");
+            Files.delete(file);
+            try (MappedIntList list = MappedIntList.open(file)) {
+                list.ensureCapacity(n);
+                for (long i = 0; i < n; i++) list.add((int) i);
+            }
+            Bench.run(String.format("%-18s %-30s", "MappedIntList", "reopen and get(n - 1)"), () -> {}, () -> {
+                try (MappedIntList list = MappedIntList.open(file)) {
+                    return list.get(list.longSize() - 1);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            try (MappedIntList list = MappedIntList.open(file)) {
+                Bench.run(String.format("%-18s %-30s x%,d", "MappedIntList", "forEach", n), 0, 3, () -> {}, () -> {
+                    long[] sum = new long[1];
+                    list.forEach(element -> sum[0] += element);
+                    return sum[0];
+                });
+                java.util.Random random = new java.util.Random(1);
+                long[] positions = new long[1_000_000];
+                for (int i = 0; i < positions.length; i++) positions[i] = (long) (random.nextDouble() * n);
+                Bench.run(label("MappedIntList", "random get", positions.length), () -> {}, () -> {
+                    long sum = 0;
+                    for (long pos : positions) sum += list.get(pos);
+                    return sum;
+                });
+            }
+            Files.delete(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static final int BATCH = 64;
+
+    interface Producer {
+        /** Appends the elements [from, to) of the thread's share. */
+        void append(int from, int to);
+    }
+
+    /** Million elements appended per second when numThreads threads split n appends. */
+    static double producerThroughput(int n, int numThreads, Producer producer) {
+        int perThread = n / numThreads;
+        long start = System.nanoTime();
+        ConcurrentHeapBenchmark.runThreads(numThreads, t -> () -> producer.append(t * perThread, (t + 1) * perThread));
+        long nanos = System.nanoTime() - start;
+        return (double) perThread * numThreads / nanos * 1e3;
+    }
+
+    static void producers(int n, int maxThreads) {
+        String[] names = { "synchronized ArrayList add", "synchronized ArrayList addAll(" + BATCH + ")",
+                "ConcurrentAppendList add", "ConcurrentAppendList appendBatch(" + BATCH + ")" };
+        System.out.printf("%-40s %8s %10s%n", "list", "threads", "Mops/s");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            for (int variant = 0; variant < names.length; variant++) {
+                double mops = 0;
+                for (int run = 0; run < 2; run++) { // the first run is warmup
+                    mops = producerThroughput(n, threads, producer(variant));
+                }
+                System.out.printf("%-40s %8d %10.1f%n", names[variant], threads, mops);
+            }
+        }
+    }
+
+    /** A new shared list and the way the threads append to it. */
+    static Producer producer(int variant) {
+        if (variant < 2) {
+            ArrayList list = new ArrayList();
+            if (variant == 0) {
+                return (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        synchronized (list) {
+                            list.add(i);
+                        }
+                    }
+                };
+            }
+            return (from, to) -> {
+                int[] batch = new int[BATCH];
+                for (int i = from; i < to; i += BATCH) {
+                    int count = Math.min(BATCH, to - i);
+                    for (int j = 0; j < count; j++) batch[j] = i + j;
+                    synchronized (list) {
+                        list.addAll(count == BATCH ? batch : java.util.Arrays.copyOf(batch, count));
+                    }
+                }
+            };
+        }
+        ConcurrentAppendList list = new ConcurrentAppendList();
+        if (variant == 2) {
+            return (from, to) -> {
+                for (int i = from; i < to; i++) list.add(i);
+            };
+        }
+        return (from, to) -> {
+            int[] batch = new int[BATCH];
+            for (int i = from; i < to; i += BATCH) {
+                int count = Math.min(BATCH, to - i);
+                for (int j = 0; j < count; j++) batch[j] = i + j;
+                list.appendBatch(count == BATCH ? batch : java.util.Arrays.copyOf(batch, count));
+            }
+        };
+    }
+
+    static final String[] TRACES = { "random", "clustered", "append-heavy" };
+
+    /**
+     * An edit trace on a list that starts with n elements: kinds[i] is 0 for an add
+     * and 1 for a delete at positions[i]. Every prefix of a trace is valid on its own.
+     */
+    static int[][] trace(String kind, int n, int length, java.util.Random random) {
+        int[] kinds = new int[length];
+        int[] positions = new int[length];
+        int size = n;
+        int cursor = n / 2;
+        for (int i = 0; i < length; i++) {
+            boolean add;
+            int pos;
+            switch (kind) {
+                case "random":
+                    add = size == 0 || random.nextBoolean();
+                    pos = random.nextInt(add ? size + 1 : size);
+                    break;
+                case "clustered":
+                    if (random.nextInt(100) == 0) {
+                        cursor = random.nextInt(size + 1);
+                    } else {
+                        cursor = Math.max(0, Math.min(size, cursor + random.nextInt(33) - 16));
+                    }
+                    // type at the cursor, or backspace
+                    add = cursor == 0 || random.nextInt(10) < 7;
+                    pos = add ? cursor++ : --cursor;
+                    break;
+                case "append-heavy":
+                    int choice = random.nextInt(20);
+                    add = choice < 19 || size == 0;
+                    pos = choice < 18 ? size : random.nextInt(add ? size + 1 : size);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown trace " + kind);
+            }
+            kinds[i] = add ? 0 : 1;
+            positions[i] = pos;
+            size += add ? 1 : -1;
+        }
+        return new int[][] { kinds, positions };
+    }
+
+    /** Edits of a trace that a list replays in about a second at n = 10^6. */
+    static int edits(String list, String trace) {
+        boolean clustered = trace.equals("clustered");
+        boolean append = trace.equals("append-heavy");
+        switch (list) {
+            case "ArrayList": return append ? 20_000 : 2_000;
+            case "LinkedList": return append ? 1_000 : 100;
+            case "UnrolledLinkedList": return clustered ? 100_000 : 20_000;
+            case "GapBufferList": return clustered ? 100_000 : append ? 20_000 : 2_000;
+            default: return 100_000;
+        }
+    }
+
+    static void edits(int n) {
+        String[] names = { "ArrayList", "LinkedList", "UnrolledLinkedList", "GapBufferList", "TieredVectorList" };
+        for (String kind : TRACES) {
+            int[][] trace = trace(kind, n, 100_000, new java.util.Random(1));
+            for (String name : names) {
+                int edits = edits(name, kind);
+                List[] holder = new List[1];
+                Bench.run(label(name, kind + " edits", edits), 1, 3, () -> holder[0] = filled(name, n), () -> {
+                    List list = holder[0];
+                    for (int i = 0; i < edits; i++) {
+                        if (trace[0][i] == 0) {
+                            list.add(trace[1][i], i);
+                        } else {
+                            list.delete(trace[1][i]);
+                        }
+                    }
+                    return list.size();
+                });
+            }
+        }
+    }
+
+    static void mutation(int n) {
+        int[] block = new int[CHUNK];
+        for (String name : new String[] { "ArrayList", "LinkedList" }) {
+            boolean iteratorOk = name.equals("LinkedList") || n <= 100_000;
+            List[] holder = new List[1];
+            Bench.Setup setup = () -> holder[0] = filled(name, n);
+
+            Bench.run(label(name, "removeIf(odd)", n), setup, () -> holder[0].removeIf(element -> (element & 1) != 0));
+            if (iteratorOk) {
+                Bench.run(label(name, "iterator remove odd", n), setup, () -> {
+                    List.ListIterator iterator = holder[0].listIterator();
+                    while (iterator.hasNext()) {
+                        if ((iterator.nextInt() & 1) != 0) iterator.remove();
+                    }
+                    return holder[0].size();
+                });
+            }
+            Bench.run(label(name, "addAll(n/2, " + block.length + ")", n), setup, () -> {
+                holder[0].addAll(n / 2, block);
+                return holder[0].size();
+            });
+            Bench.run(label(name, "iterator add " + block.length + " at n/2", n), setup, () -> {
+                List.ListIterator iterator = holder[0].listIterator(n / 2);
+                for (int element : block) iterator.add(element);
+                return holder[0].size();
+            });
+            if (iteratorOk) {
+                Bench.run(label(name, "iterator add after each", n), setup, () -> {
+                    List.ListIterator iterator = holder[0].listIterator();
+                    while (iterator.hasNext()) iterator.add(iterator.nextInt());
+                    return holder[0].size();
+                });
+            }
+        }
+    }
+}
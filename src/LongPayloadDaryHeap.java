@@ -0,0 +1,158 @@
+import java.util.NoSuchElementException;
+
+/**
+ * A d-ary min-heap of long keys, each carrying an int payload (e.g. a task id
+ * or an index into some other array). Keys and payloads live in two parallel
+ * arrays that are always moved together, so nothing gets boxed.
+ */
+public class LongPayloadDaryHeap {
+    private long[] keys;
+    private int[] payloads;
+    private int size;
+    private final int d;
+
+    public LongPayloadDaryHeap(int d) {
+        this(d, 16);
+    }
+
+    public LongPayloadDaryHeap(int d, int initialCapacity) {
+        if (d < 2) throw new IllegalArgumentException("d must be at least 2");
+        this.keys = new long[Math.max(1, initialCapacity)];
+        this.payloads = new int[keys.length];
+        this.size = 0;
+        this.d = d;
+    }
+
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(minCapacity, 2 * keys.length);
+        long[] newKeys = new long[newCapacity];
+        int[] newPayloads = new int[newCapacity];
+        System.arraycopy(keys, 0, newKeys, 0, size);
+        System.arraycopy(payloads, 0, newPayloads, 0, size);
+        keys = newKeys;
+        payloads = newPayloads;
+    }
+
+    protected void siftDown(int i, long key, int payload) {
+        while (true) {
+            int firstChild = d * i + 1;
+            if (firstChild >= size) break;
+            int lastChild = Math.min(firstChild + d, size);
+            int smallest = firstChild;
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (keys[child] < keys[smallest]) smallest = child;
+            }
+            if (keys[smallest] >= key) break;
+            keys[i] = keys[smallest];
+            payloads[i] = payloads[smallest];
+            i = smallest;
+        }
+        keys[i] = key;
+        payloads[i] = payload;
+    }
+
+    protected void siftUp(int i, long key, int payload) {
+        while (i > 0) {
+            int parentPos = (i - 1) / d;
+            if (keys[parentPos] <= key) break;
+            keys[i] = keys[parentPos];
+            payloads[i] = payloads[parentPos];
+            i = parentPos;
+        }
+        keys[i] = key;
+        payloads[i] = payload;
+    }
+
+    public long minKey() {
+        if (size == 0) throw new NoSuchElementException();
+        return keys[0];
+    }
+
+    public int minPayload() {
+        if (size == 0) throw new NoSuchElementException();
+        return payloads[0];
+    }
+
+    /** Removes the entry with the smallest key and returns its payload. */
+    public int deleteMin() {
+        if (size == 0) throw new NoSuchElementException();
+        int min = payloads[0];
+        size--;
+        if (size > 0) siftDown(0, keys[size], payloads[size]);
+        return min;
+    }
+
+    /**
+     * Replaces the entry with the smallest key and returns its payload, with a single
+     * siftDown instead of deleteMin followed by add.
+     */
+    public int replaceMin(long key, int payload) {
+        if (size == 0) throw new NoSuchElementException();
+        int min = payloads[0];
+        siftDown(0, key, payload);
+        return min;
+    }
+
+    public void build(long[] keys, int[] payloads) {
+        if (keys.length != payloads.length) throw new IllegalArgumentException("keys and payloads differ in length");
+        if (keys.length > this.keys.length) {
+            this.keys = new long[keys.length];
+            this.payloads = new int[keys.length];
+        }
+        System.arraycopy(keys, 0, this.keys, 0, keys.length);
+        System.arraycopy(payloads, 0, this.payloads, 0, keys.length);
+        size = keys.length;
+        for (int i = (size - 2) / d; i >= 0; i--) {
+            siftDown(i, this.keys[i], this.payloads[i]);
+        }
+    }
+
+    public void add(long key, int payload) {
+        if (size == keys.length) grow(size + 1);
+        size++;
+        siftUp(size - 1, key, payload);
+    }
+
+    /** Returns the payloads of all entries whose key is smaller than the given one, in level order. */
+    public int[] smallerThan(long key) {
+        int[] indices = new int[size];
+        int count = 0;
+
+        if (size == 0 || keys[0] >= key) return new int[0];
+        indices[count++] = 0;
+        for (int head = 0; head < count; head++) {
+            int firstChild = d * indices[head] + 1;
+            int lastChild = Math.min(firstChild + d, size);
+            for (int child = firstChild; child < lastChild; child++) {
+                if (keys[child] < key) indices[count++] = child;
+            }
+        }
+
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = payloads[indices[i]];
+        }
+        return result;
+    }
+
+    protected void check() {
+        for (int i = 1; i < size; i++) {
+            int parent = (i - 1) / d;
+            if (keys[parent] > keys[i]) {
+                System.err.println("Min-Heap Error: Parent " + keys[parent] + " is greater than child " + keys[i]);
+            }
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
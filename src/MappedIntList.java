@@ -0,0 +1,350 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * List of ints in a memory-mapped file, outside the Java heap: it adds nothing for
+ * the garbage collector to trace or copy, and it is indexed by long, so it can hold
+ * billions of elements.
+ *
+ * The file is a 64-byte header (magic number, version, size) followed by the
+ * elements in native byte order. A single mapping is limited to 2 GB, so the file
+ * is mapped in segments of 2^28 ints (1 GB). All segments but the last are full
+ * size; the last one starts small and is remapped at twice its size when it fills
+ * up, which also extends the file.
+ *
+ * {@link #open(Path)} creates or reopens a persistent list: every change to the size
+ * is written to the mapped header, so reopening the file only maps it again and
+ * doesn't read the elements. The no-argument constructor uses a temporary file that
+ * close() deletes. Changes reach the disk when the OS writes the pages back, or at
+ * the latest on force() or close(). JDK 17 has no public way to unmap a buffer, so
+ * the mappings themselves are released once the closed list is garbage collected.
+ *
+ * The methods of {@link List} take int positions and fail with an
+ * ArithmeticException from size() beyond Integer.MAX_VALUE elements; the long
+ * variants work for any size.
+ */
+public class MappedIntList implements List, AutoCloseable {
+    private static final int MAGIC = 0x414c4731; // "ALG1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SIZE_OFFSET = 8;
+
+    private static final int SEGMENT_SHIFT = 28;
+    private static final int SEGMENT_INTS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_INTS - 1;
+    private static final int INITIAL_INTS = 1 << 12;
+    private static final int COPY_INTS = 1 << 13;
+
+    private final Path file;
+    private final boolean temporary;
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer[] buffers = new MappedByteBuffer[4];
+    private IntBuffer[] segments = new IntBuffer[4];
+    private int numSegments;
+    private long capacity;
+    private long numElements;
+
+    /** An empty list in a temporary file that is deleted on close. */
+    public MappedIntList() throws IOException {
+        this(Files.createTempFile("list", ".ints"), true);
+    }
+
+    private MappedIntList(Path file, boolean temporary) throws IOException {
+        this.file = file;
+        this.temporary = temporary;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = channel.size() == 0;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        header.order(ByteOrder.nativeOrder());
+        if (created) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putLong(SIZE_OFFSET, 0);
+            mapSegment(0, INITIAL_INTS);
+        } else {
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                channel.close();
+                throw new IOException(file + " is not a list file");
+            }
+            numElements = header.getLong(SIZE_OFFSET);
+            long ints = (channel.size() - HEADER_BYTES) / Integer.BYTES;
+            for (int k = 0; (long) k << SEGMENT_SHIFT < ints; k++) {
+                mapSegment(k, (int) Math.min(SEGMENT_INTS, ints - ((long) k << SEGMENT_SHIFT)));
+            }
+            if (numSegments == 0) mapSegment(0, INITIAL_INTS);
+            if (numElements < 0 || numElements > capacity) {
+                channel.close();
+                throw new IOException(file + " is truncated");
+            }
+        }
+    }
+
+    /** Opens the list stored in file, or creates an empty one if the file doesn't exist. */
+    public static MappedIntList open(Path file) throws IOException {
+        return new MappedIntList(file, false);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /** (Re)maps segment k with room for ints elements. */
+    private void mapSegment(int k, int ints) throws IOException {
+        if (k == buffers.length) {
+            buffers = Arrays.copyOf(buffers, 2 * k);
+            segments = Arrays.copyOf(segments, 2 * k);
+        }
+        long position = HEADER_BYTES + ((long) k << SEGMENT_SHIFT) * Integer.BYTES;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) ints * Integer.BYTES);
+        buffer.order(ByteOrder.nativeOrder());
+        if (k == numSegments) {
+            numSegments++;
+        } else {
+            capacity -= segments[k].capacity();
+        }
+        buffers[k] = buffer;
+        segments[k] = buffer.asIntBuffer();
+        capacity += ints;
+    }
+
+    private void checkOpen() {
+        if (channel == null) throw new IllegalStateException("list is closed");
+    }
+
+    /** Grows the mapping, if needed, so that minCapacity elements fit. */
+    public void ensureCapacity(long minCapacity) {
+        checkOpen();
+        try {
+            while (capacity < minCapacity) {
+                int last = numSegments - 1;
+                int ints = segments[last].capacity();
+                if (ints < SEGMENT_INTS) {
+                    mapSegment(last, (int) Math.min(SEGMENT_INTS, 2L * ints));
+                } else {
+                    mapSegment(numSegments, INITIAL_INTS);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void setSize(long size) {
+        numElements = size;
+        header.putLong(SIZE_OFFSET, size);
+    }
+
+    public boolean isEmpty() {
+        return numElements == 0;
+    }
+
+    public int size() {
+        return Math.toIntExact(numElements);
+    }
+
+    public long longSize() {
+        return numElements;
+    }
+
+    private void checkIndex(long pos, long bound) {
+        if (pos < 0 || pos >= bound) throw new IndexOutOfBoundsException(Long.toString(pos));
+    }
+
+    public int get(int pos) {
+        return get((long) pos);
+    }
+
+    public int get(long pos) {
+        checkOpen();
+        checkIndex(pos, numElements);
+        return segments[(int) (pos >>> SEGMENT_SHIFT)].get((int) pos & SEGMENT_MASK);
+    }
+
+    public void set(long pos, int element) {
+        checkOpen();
+        checkIndex(pos, numElements);
+        segments[(int) (pos >>> SEGMENT_SHIFT)].put((int) pos & SEGMENT_MASK, element);
+    }
+
+    public void add(int element) {
+        checkOpen();
+        long pos = numElements;
+        if (pos == capacity) ensureCapacity(pos + 1);
+        segments[(int) (pos >>> SEGMENT_SHIFT)].put((int) pos & SEGMENT_MASK, element);
+        setSize(pos + 1);
+    }
+
+    public void add(int pos, int element) {
+        add((long) pos, element);
+    }
+
+    /** Inserts at pos, moving the elements after it: O(n - pos). */
+    public void add(long pos, int element) {
+        checkOpen();
+        checkIndex(pos, numElements + 1);
+        ensureCapacity(numElements + 1);
+        move(pos, pos + 1, numElements - pos);
+        segments[(int) (pos >>> SEGMENT_SHIFT)].put((int) pos & SEGMENT_MASK, element);
+        setSize(numElements + 1);
+    }
+
+    public void delete(int pos) {
+        delete((long) pos);
+    }
+
+    /** Removes the element at pos, moving the elements after it: O(n - pos). */
+    public void delete(long pos) {
+        checkOpen();
+        checkIndex(pos, numElements);
+        move(pos + 1, pos, numElements - pos - 1);
+        setSize(numElements - 1);
+    }
+
+    public void addAll(int[] elements) {
+        checkOpen();
+        ensureCapacity(numElements + elements.length);
+        write(numElements, elements, 0, elements.length);
+        setSize(numElements + elements.length);
+    }
+
+    public void addAll(int pos, int[] elements) {
+        checkOpen();
+        checkIndex(pos, numElements + 1);
+        ensureCapacity(numElements + elements.length);
+        move(pos, pos + elements.length, numElements - pos);
+        write(pos, elements, 0, elements.length);
+        setSize(numElements + elements.length);
+    }
+
+    /** Copies length elements starting at position pos into target[offset...]. */
+    public void read(long pos, int[] target, int offset, int length) {
+        checkOpen();
+        if (length > 0) checkIndex(pos + length - 1, numElements);
+        checkIndex(pos, numElements + 1);
+        while (length > 0) {
+            IntBuffer segment = segments[(int) (pos >>> SEGMENT_SHIFT)];
+            int from = (int) pos & SEGMENT_MASK;
+            int count = Math.min(length, SEGMENT_INTS - from);
+            segment.get(from, target, offset, count);
+            pos += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /** Writes source[offset, offset + length) to the positions from pos on, within the capacity. */
+    private void write(long pos, int[] source, int offset, int length) {
+        while (length > 0) {
+            IntBuffer segment = segments[(int) (pos >>> SEGMENT_SHIFT)];
+            int from = (int) pos & SEGMENT_MASK;
+            int count = Math.min(length, SEGMENT_INTS - from);
+            segment.put(from, source, offset, count);
+            pos += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Moves count elements from position from to position to through a small buffer,
+     * starting at the end that is not overwritten before it is read.
+     */
+    private void move(long from, long to, long count) {
+        if (count == 0 || from == to) return;
+        int[] buffer = new int[(int) Math.min(COPY_INTS, count)];
+        for (long done = 0; done < count; ) {
+            int n = (int) Math.min(buffer.length, count - done);
+            long offset = to > from ? count - done - n : done;
+            read(from + offset, buffer, 0, n);
+            write(to + offset, buffer, 0, n);
+            done += n;
+        }
+    }
+
+    public void clear() {
+        checkOpen();
+        setSize(0);
+    }
+
+    public void forEach(IntConsumer action) {
+        checkOpen();
+        for (int k = 0; (long) k << SEGMENT_SHIFT < numElements; k++) {
+            IntBuffer segment = segments[k];
+            int count = (int) Math.min(SEGMENT_INTS, numElements - ((long) k << SEGMENT_SHIFT));
+            for (int i = 0; i < count; i++) action.accept(segment.get(i));
+        }
+    }
+
+    public ListIterator listIterator(int pos) {
+        checkOpen();
+        checkIndex(pos, numElements + 1);
+        return new ListIterator() {
+            private long cursor = pos;
+            private long lastReturned = -1;
+
+            public boolean hasNext() {
+                return cursor < numElements;
+            }
+
+            public int nextInt() {
+                if (cursor >= numElements) throw new NoSuchElementException();
+                lastReturned = cursor++;
+                return get(lastReturned);
+            }
+
+            public int nextIndex() {
+                return Math.toIntExact(cursor);
+            }
+
+            public void add(int element) {
+                MappedIntList.this.add(cursor++, element);
+                lastReturned = -1;
+            }
+
+            public void remove() {
+                if (lastReturned < 0) throw new IllegalStateException();
+                delete(lastReturned);
+                cursor = lastReturned;
+                lastReturned = -1;
+            }
+
+            public void set(int element) {
+                if (lastReturned < 0) throw new IllegalStateException();
+                MappedIntList.this.set(lastReturned, element);
+            }
+        };
+    }
+
+    /** Writes all changes to the disk. */
+    public void force() {
+        checkOpen();
+        header.force();
+        for (int k = 0; k < numSegments; k++) buffers[k].force();
+    }
+
+    /**
+     * Writes the changes of a persistent list to the disk, or deletes the temporary
+     * file, and closes the file. Further calls do nothing.
+     */
+    public void close() throws IOException {
+        if (channel == null) return;
+        if (!temporary) force();
+        channel.close();
+        channel = null;
+        header = null;
+        buffers = null;
+        segments = null;
+        if (temporary) Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,138 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Lazily merges sorted sources into one sorted iterator. Each call to next() takes
+ * the smallest head from a {@link DaryHeap} of the sources' current elements and
+ * replaces it in place with the next element of the same source, which is a single
+ * siftDown instead of a deleteMin followed by an add. A source only leaves the heap
+ * when it runs out, so k sources take O(k) memory and O(log k) time per element.
+ *
+ * Equal elements come out in the order of their sources. {@link Ints} merges int[]
+ * arrays or primitive iterators without boxing.
+ *
+ * @param <T> Type of the elements.
+ */
+public class MergeIterator<T extends Comparable<T>> implements Iterator<T> {
+    private static final int DEFAULT_D = 4;
+
+    private static final class Head<T extends Comparable<T>> implements Comparable<Head<T>> {
+        final Iterator<? extends T> source;
+        final int index;
+        T value;
+
+        Head(Iterator<? extends T> source, int index) {
+            this.source = source;
+            this.index = index;
+            this.value = source.next();
+        }
+
+        public int compareTo(Head<T> other) {
+            int c = value.compareTo(other.value);
+            return c != 0 ? c : Integer.compare(index, other.index);
+        }
+    }
+
+    private final DaryHeap<Head<T>> heap = new DaryHeap<>(DEFAULT_D);
+
+    /** Merges the sources, each of which must return its elements in ascending order. */
+    public MergeIterator(List<? extends Iterator<? extends T>> sources) {
+        List<Head<T>> heads = new ArrayList<>(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i).hasNext()) heads.add(new Head<>(sources.get(i), i));
+        }
+        heap.heapify(heads);
+    }
+
+    public boolean hasNext() {
+        return !heap.isEmpty();
+    }
+
+    public T next() {
+        Head<T> head = heap.min();
+        if (head == null) throw new NoSuchElementException();
+        T value = head.value;
+        if (head.source.hasNext()) {
+            head.value = head.source.next();
+            heap.replaceMin(head);
+        } else {
+            heap.deleteMin();
+        }
+        return value;
+    }
+
+    /**
+     * Merges sorted sources of ints. The heads are in a {@link LongPayloadDaryHeap}
+     * with the value as key and the number of the source as payload. Arrays are
+     * read directly through a position per array, not through iterators.
+     */
+    public static class Ints implements PrimitiveIterator.OfInt {
+        private final int[][] arrays;
+        private final int[] positions;
+        private final PrimitiveIterator.OfInt[] sources;
+        private final LongPayloadDaryHeap heap;
+
+        /** Merges arrays that are each sorted in ascending order. */
+        public Ints(int[]... arrays) {
+            this.arrays = arrays;
+            this.positions = new int[arrays.length];
+            this.sources = null;
+            this.heap = new LongPayloadDaryHeap(DEFAULT_D, Math.max(1, arrays.length));
+            long[] keys = new long[arrays.length];
+            int[] payloads = new int[arrays.length];
+            int count = 0;
+            for (int i = 0; i < arrays.length; i++) {
+                if (arrays[i].length > 0) {
+                    keys[count] = arrays[i][0];
+                    payloads[count++] = i;
+                    positions[i] = 1;
+                }
+            }
+            heap.build(Arrays.copyOf(keys, count), Arrays.copyOf(payloads, count));
+        }
+
+        public Ints(PrimitiveIterator.OfInt... sources) {
+            this.arrays = null;
+            this.positions = null;
+            this.sources = sources;
+            this.heap = new LongPayloadDaryHeap(DEFAULT_D, Math.max(1, sources.length));
+            long[] keys = new long[sources.length];
+            int[] payloads = new int[sources.length];
+            int count = 0;
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i].hasNext()) {
+                    keys[count] = sources[i].nextInt();
+                    payloads[count++] = i;
+                }
+            }
+            heap.build(Arrays.copyOf(keys, count), Arrays.copyOf(payloads, count));
+        }
+
+        public boolean hasNext() {
+            return !heap.isEmpty();
+        }
+
+        public int nextInt() {
+            int value = (int) heap.minKey();
+            int source = heap.minPayload();
+            if (arrays != null) {
+                int[] array = arrays[source];
+                int pos = positions[source]++;
+                if (pos < array.length) {
+                    heap.replaceMin(array[pos], source);
+                } else {
+                    heap.deleteMin();
+                }
+            } else if (sources[source].hasNext()) {
+                heap.replaceMin(sources[source].nextInt(), source);
+            } else {
+                heap.deleteMin();
+            }
+            return value;
+        }
+    }
+}
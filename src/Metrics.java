@@ -0,0 +1,191 @@
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional instrumentation: event counters and latency histograms, grouped into
+ * named scopes such as "DaryHeap" or "Sorting.quickSort".
+ *
+ * Metrics are off unless the JVM is started with -Dalgodat.metrics=true. ENABLED is
+ * a static final field, so the JIT treats it as a constant and drops every
+ * {@code if (Metrics.ENABLED)} block when it is false; instrumented code pays nothing.
+ * When on, all counters are {@link LongAdder}s and can be updated from any thread,
+ * and a report is printed to System.err when the JVM exits.
+ *
+ * Typical use in a class:
+ * <pre>
+ * private static final Metrics.Scope METRICS = Metrics.scope("DaryHeap");
+ * private static final Metrics.Histogram ADD = METRICS.histogram("add");
+ * ...
+ * long start = Metrics.start();
+ * ...
+ * if (Metrics.ENABLED) {
+ *     METRICS.count(Metrics.Event.COMPARISONS, comparisons);
+ *     ADD.record(start);
+ * }
+ * </pre>
+ */
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("algodat.metrics");
+
+    public enum Event {
+        COMPARISONS, SWAPS, MOVES, READS, WRITES, ALLOCATIONS, RESIZES;
+
+        String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final Map<String, Scope> SCOPES = new ConcurrentSkipListMap<>();
+
+    static {
+        if (ENABLED) Runtime.getRuntime().addShutdownHook(new Thread(() -> report(System.err)));
+    }
+
+    private Metrics() {
+    }
+
+    /** Returns the scope with the given name, creating it on first use. */
+    public static Scope scope(String name) {
+        return SCOPES.computeIfAbsent(name, Scope::new);
+    }
+
+    /** Start time for {@link Histogram#record(long)}, or 0 if metrics are off. */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /** Prints every scope that recorded something. */
+    public static void report(PrintStream out) {
+        for (Scope scope : SCOPES.values()) {
+            if (!scope.isEmpty()) out.print(scope);
+        }
+    }
+
+    public static void reset() {
+        for (Scope scope : SCOPES.values()) scope.reset();
+    }
+
+    public static final class Scope {
+        private final String name;
+        private final LongAdder[] counters = new LongAdder[Event.values().length];
+        private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+
+        private Scope(String name) {
+            this.name = name;
+            for (int i = 0; i < counters.length; i++) counters[i] = new LongAdder();
+        }
+
+        public void count(Event event) {
+            counters[event.ordinal()].increment();
+        }
+
+        public void count(Event event, long n) {
+            counters[event.ordinal()].add(n);
+        }
+
+        public long get(Event event) {
+            return counters[event.ordinal()].sum();
+        }
+
+        /** Returns the latency histogram of an operation, creating it on first use. */
+        public Histogram histogram(String operation) {
+            return histograms.computeIfAbsent(operation, op -> new Histogram());
+        }
+
+        boolean isEmpty() {
+            for (LongAdder counter : counters) {
+                if (counter.sum() != 0) return false;
+            }
+            for (Histogram histogram : histograms.values()) {
+                if (histogram.count() != 0) return false;
+            }
+            return true;
+        }
+
+        void reset() {
+            for (LongAdder counter : counters) counter.reset();
+            for (Histogram histogram : histograms.values()) histogram.reset();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(name).append(':');
+            for (Event event : Event.values()) {
+                long value = get(event);
+                if (value != 0) sb.append(String.format(" %s=%,d", event.label(), value));
+            }
+            sb.append(System.lineSeparator());
+            for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+                if (entry.getValue().count() == 0) continue;
+                sb.append(String.format("  %s.%s: %s%n", name, entry.getKey(), entry.getValue()));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Latencies in nanoseconds, bucketed by powers of two: bucket i counts the values
+     * in [2^(i-1), 2^i). Percentiles are reported as the upper bound of their bucket.
+     */
+    public static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[64];
+        private final LongAdder totalNanos = new LongAdder();
+
+        private Histogram() {
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+
+        /** Records the time since start, which came from {@link Metrics#start()}. */
+        public void record(long start) {
+            recordNanos(System.nanoTime() - start);
+        }
+
+        public void recordNanos(long nanos) {
+            nanos = Math.max(0, nanos);
+            buckets[64 - Long.numberOfLeadingZeros(nanos)].increment();
+            totalNanos.add(nanos);
+        }
+
+        public long count() {
+            long count = 0;
+            for (LongAdder bucket : buckets) count += bucket.sum();
+            return count;
+        }
+
+        public double mean() {
+            long count = count();
+            return count == 0 ? 0 : (double) totalNanos.sum() / count;
+        }
+
+        /** Upper bound in nanoseconds below which the given fraction (0-1) of the values lie. */
+        public long percentile(double fraction) {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            long rank = (long) Math.ceil(fraction * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && counts[i] > 0) return i == 0 ? 0 : (i == 63 ? Long.MAX_VALUE : 1L << i);
+            }
+            return 0;
+        }
+
+        void reset() {
+            for (LongAdder bucket : buckets) bucket.reset();
+            totalNanos.reset();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%,d mean=%,.0fns p50<%,dns p99<%,dns p99.9<%,dns max<%,dns",
+                    count(), mean(), percentile(0.5), percentile(0.99), percentile(0.999), percentile(1.0));
+        }
+    }
+}
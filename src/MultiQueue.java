@@ -0,0 +1,177 @@
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A relaxed concurrent priority queue made of k independently locked
+ * {@link DaryHeap}s (Rihani, Sanders and Dementiev, 2015). add puts the element
+ * into a random shard; deleteMin looks at the cached minimum of two random
+ * shards and removes from the better one. The result is usually not the global
+ * minimum, but its expected rank is O(k), and threads rarely contend for the
+ * same lock.
+ *
+ * @param <T> Type of objects stored in the queue.
+ */
+public class MultiQueue<T extends Comparable<T>> implements ConcurrentPriorityQueue<T> {
+
+    private static class Shard<T extends Comparable<T>> {
+        final ReentrantLock lock = new ReentrantLock();
+        final DaryHeap<T> heap;
+        volatile T min; // read without the lock to pick a shard
+
+        Shard(int d) {
+            this.heap = new DaryHeap<>(d);
+        }
+    }
+
+    private final Shard<T>[] shards;
+    private final AtomicInteger size = new AtomicInteger();
+    private final int batchSize;
+
+    /** Creates a queue with the given number of shards, each a d-ary heap. */
+    public MultiQueue(int numShards, int d) {
+        this(numShards, d, 64);
+    }
+
+    /**
+     * @param batchSize how many elements addAll and drainMin move per lock acquisition.
+     *                  Larger batches mean less locking, but a larger rank error.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public MultiQueue(int numShards, int d, int batchSize) {
+        if (numShards < 2) throw new IllegalArgumentException("need at least two shards");
+        if (batchSize < 1) throw new IllegalArgumentException("batch size must be positive");
+        this.shards = (Shard<T>[]) new Shard[numShards];
+        for (int i = 0; i < numShards; i++) {
+            shards[i] = new Shard<>(d);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /** Locks a random shard, preferring one that isn't locked by another thread. */
+    private Shard<T> lockRandomShard() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            Shard<T> shard = shards[random.nextInt(shards.length)];
+            if (shard.lock.tryLock()) return shard;
+        }
+    }
+
+    public void add(T element) {
+        Shard<T> shard = lockRandomShard();
+        try {
+            shard.heap.add(element);
+            shard.min = shard.heap.min();
+        } finally {
+            shard.lock.unlock();
+        }
+        size.incrementAndGet();
+    }
+
+    public void addAll(Collection<? extends T> elements) {
+        Iterator<? extends T> iterator = elements.iterator();
+        while (iterator.hasNext()) {
+            Shard<T> shard = lockRandomShard();
+            int added = 0;
+            try {
+                while (added < batchSize && iterator.hasNext()) {
+                    shard.heap.add(iterator.next());
+                    added++;
+                }
+                shard.min = shard.heap.min();
+            } finally {
+                shard.lock.unlock();
+            }
+            size.addAndGet(added);
+        }
+    }
+
+    private static <T extends Comparable<T>> boolean better(T a, T b) {
+        if (a == null) return false;
+        return b == null || a.compareTo(b) <= 0;
+    }
+
+    /** Locks the better of two random shards, or returns null if both looked empty. */
+    private Shard<T> lockBetterOfTwo() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            Shard<T> first = shards[random.nextInt(shards.length)];
+            Shard<T> second = shards[random.nextInt(shards.length)];
+            Shard<T> shard = better(first.min, second.min) ? first : second;
+            if (shard.min == null) return null;
+            if (shard.lock.tryLock()) {
+                if (shard.min != null) return shard;
+                shard.lock.unlock(); // emptied in the meantime
+            }
+        }
+    }
+
+    /** Locks any non-empty shard by scanning all of them, or returns null if the queue is empty. */
+    private Shard<T> lockAnyNonEmpty() {
+        while (size.get() > 0) {
+            for (Shard<T> shard : shards) {
+                if (shard.min == null) continue;
+                shard.lock.lock();
+                if (shard.min != null) return shard;
+                shard.lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    private Shard<T> lockShardForDelete() {
+        if (size.get() == 0) return null;
+        // Sampling two shards usually works; once the queue is nearly empty, fall back to a scan.
+        for (int attempt = 0; attempt < 4; attempt++) {
+            Shard<T> shard = lockBetterOfTwo();
+            if (shard != null) return shard;
+        }
+        return lockAnyNonEmpty();
+    }
+
+    public T deleteMin() {
+        Shard<T> shard = lockShardForDelete();
+        if (shard == null) return null;
+        T min;
+        try {
+            min = shard.heap.deleteMin();
+            shard.min = shard.heap.min();
+        } finally {
+            shard.lock.unlock();
+        }
+        size.decrementAndGet();
+        return min;
+    }
+
+    public int drainMin(int n, List<? super T> result) {
+        int drained = 0;
+        while (drained < n) {
+            Shard<T> shard = lockShardForDelete();
+            if (shard == null) break;
+            int taken = 0;
+            try {
+                while (taken < batchSize && drained + taken < n && !shard.heap.isEmpty()) {
+                    result.add(shard.heap.deleteMin());
+                    taken++;
+                }
+                shard.min = shard.heap.min();
+            } finally {
+                shard.lock.unlock();
+            }
+            size.addAndGet(-taken);
+            drained += taken;
+        }
+        return drained;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+}
@@ -0,0 +1,243 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multi-threaded sorts on top of {@link Sorting}, run on a caller-supplied
+ * {@link ForkJoinPool}. Below a cutoff the work falls back to the sequential
+ * algorithms, so small arrays don't pay for task overhead.
+ */
+public class ParallelSorting {
+
+    // Ranges smaller than this are never split further.
+    private static final int MIN_SEQUENTIAL_SIZE = 1 << 13;
+    private static final int RADIX_BITS = 8;
+
+    /** Sequential cutoff: aim for about four tasks per thread. */
+    private static int cutoff(int length, ForkJoinPool pool) {
+        return Math.max(MIN_SEQUENTIAL_SIZE, length / (4 * pool.getParallelism()));
+    }
+
+    /** Parallel merge sort. */
+    public static void mergeSort(int[] array, ForkJoinPool pool) {
+        if (array.length < 2) return;
+        int[] aux = new int[array.length];
+        pool.invoke(new MergeSortTask(array, aux, 0, array.length, false, cutoff(array.length, pool)));
+    }
+
+    /**
+     * Sorts a[from..to-1] and leaves the result in a (intoAux false) or in aux
+     * (intoAux true). Each level alternates the target, so merges never copy back.
+     */
+    private static class MergeSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] a;
+        private final int[] aux;
+        private final int from;
+        private final int to;
+        private final boolean intoAux;
+        private final int cutoff;
+
+        MergeSortTask(int[] a, int[] aux, int from, int to, boolean intoAux, int cutoff) {
+            this.a = a;
+            this.aux = aux;
+            this.from = from;
+            this.to = to;
+            this.intoAux = intoAux;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= cutoff) {
+                Sorting.mergeSort(a, from, to, aux, from);
+                if (intoAux) System.arraycopy(a, from, aux, from, to - from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MergeSortTask(a, aux, from, mid, !intoAux, cutoff),
+                      new MergeSortTask(a, aux, mid, to, !intoAux, cutoff));
+            int[] src = intoAux ? a : aux;
+            int[] dst = intoAux ? aux : a;
+            new MergeTask(src, from, mid, mid, to, dst, from, cutoff).compute();
+        }
+    }
+
+    /** Merges src[lo1..hi1-1] and src[lo2..hi2-1] into dst starting at out, splitting large merges in two. */
+    private static class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int lo1, hi1, lo2, hi2;
+        private final int[] dst;
+        private final int out;
+        private final int cutoff;
+
+        MergeTask(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int out, int cutoff) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.out = out;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1;
+            int n2 = hi2 - lo2;
+            if (n1 + n2 <= cutoff) {
+                mergeSequential();
+                return;
+            }
+            // Split the larger run in the middle and the other one at the matching position.
+            int split1, split2;
+            if (n1 >= n2) {
+                split1 = (lo1 + hi1) >>> 1;
+                split2 = lowerBound(src, lo2, hi2, src[split1]);
+            } else {
+                split2 = (lo2 + hi2) >>> 1;
+                split1 = upperBound(src, lo1, hi1, src[split2]);
+            }
+            int outSplit = out + (split1 - lo1) + (split2 - lo2);
+            invokeAll(new MergeTask(src, lo1, split1, lo2, split2, dst, out, cutoff),
+                      new MergeTask(src, split1, hi1, split2, hi2, dst, outSplit, cutoff));
+        }
+
+        private void mergeSequential() {
+            int i = lo1;
+            int j = lo2;
+            int k = out;
+            while (i < hi1 && j < hi2) {
+                int left = src[i];
+                int right = src[j];
+                boolean takeRight = right < left;
+                dst[k++] = takeRight ? right : left;
+                j += takeRight ? 1 : 0;
+                i += takeRight ? 0 : 1;
+            }
+            System.arraycopy(src, i, dst, k, hi1 - i);
+            System.arraycopy(src, j, dst, k + (hi1 - i), hi2 - j);
+        }
+    }
+
+    /** First index in a[from..to-1] with a value >= key. */
+    private static int lowerBound(int[] a, int from, int to, int key) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (a[mid] < key) from = mid + 1;
+            else to = mid;
+        }
+        return from;
+    }
+
+    /** First index in a[from..to-1] with a value > key. */
+    private static int upperBound(int[] a, int from, int to, int key) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (a[mid] <= key) from = mid + 1;
+            else to = mid;
+        }
+        return from;
+    }
+
+    /**
+     * Parallel LSD radix sort with 8-bit digits. The array is cut into one chunk
+     * per task; in every pass each task counts the digits of its chunk, a prefix
+     * sum over (digit, chunk) gives every task its own output positions, and the
+     * tasks then scatter their chunks without any synchronization.
+     */
+    public static void radixSort(int[] array, ForkJoinPool pool) {
+        int n = array.length;
+        if (n < 2) return;
+        if (n <= MIN_SEQUENTIAL_SIZE) {
+            Sorting.radixSort(array);
+            return;
+        }
+        int radix = 1 << RADIX_BITS;
+        int mask = radix - 1;
+        int numChunks = Math.min(4 * pool.getParallelism(), (n + MIN_SEQUENTIAL_SIZE - 1) / MIN_SEQUENTIAL_SIZE);
+        int chunkSize = (n + numChunks - 1) / numChunks;
+        int[][] counts = new int[numChunks][radix];
+        int[] scratch = new int[n];
+
+        int[] from = array;
+        int[] to = scratch;
+        for (int shift = 0; shift < 32; shift += RADIX_BITS) {
+            int[] src = from;
+            int[] dst = to;
+            int digitShift = shift;
+            pool.invoke(new ChunkTask(numChunks, chunk -> {
+                int[] count = counts[chunk];
+                Arrays.fill(count, 0);
+                int end = Math.min(n, (chunk + 1) * chunkSize);
+                for (int i = chunk * chunkSize; i < end; i++) {
+                    count[((src[i] ^ Integer.MIN_VALUE) >>> digitShift) & mask]++;
+                }
+            }));
+
+            // Turn counts into start positions, digit-major so equal digits keep chunk order.
+            int sum = 0;
+            boolean skip = false;
+            for (int digit = 0; digit < radix && !skip; digit++) {
+                int digitTotal = 0;
+                for (int chunk = 0; chunk < numChunks; chunk++) {
+                    int c = counts[chunk][digit];
+                    counts[chunk][digit] = sum;
+                    sum += c;
+                    digitTotal += c;
+                }
+                skip = digitTotal == n; // all keys share this digit
+            }
+            if (skip) continue;
+
+            pool.invoke(new ChunkTask(numChunks, chunk -> {
+                int[] next = counts[chunk];
+                int end = Math.min(n, (chunk + 1) * chunkSize);
+                for (int i = chunk * chunkSize; i < end; i++) {
+                    int value = src[i];
+                    dst[next[((value ^ Integer.MIN_VALUE) >>> digitShift) & mask]++] = value;
+                }
+            }));
+            from = dst;
+            to = src;
+        }
+        if (from != array) System.arraycopy(from, 0, array, 0, n);
+    }
+
+    interface ChunkAction {
+        void run(int chunk);
+    }
+
+    /** Runs the action for chunks 0..numChunks-1 in parallel. */
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo;
+        private final int hi;
+        private final ChunkAction action;
+
+        ChunkTask(int numChunks, ChunkAction action) {
+            this(0, numChunks, action);
+        }
+
+        private ChunkTask(int lo, int hi, ChunkAction action) {
+            this.lo = lo;
+            this.hi = hi;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                action.run(lo);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ChunkTask(lo, mid, action), new ChunkTask(mid, hi, action));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Scaling of the parallel sorts on n random ints (default 10^7) for 1, 2, 4, ..., 32 threads.
+ * Arrays.parallelSort is started from inside the same pool, so its subtasks
+ * run there too (its task granularity still follows the common pool's size).
+ */
+public class ParallelSortingBenchmark {
+
+    interface Sort {
+        void sort(int[] array, ForkJoinPool pool);
+    }
+
+    static void run(String name, int threads, int[] input, int[] expected, Sort sort) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            int[] array = input.clone();
+            sort.sort(array, pool);
+            if (!Arrays.equals(array, expected)) System.out.println("Error: " + name + " did not sort the input");
+            Bench.run(String.format("%-22s threads=%d", name, threads), 3, 5,
+                    () -> System.arraycopy(input, 0, array, 0, input.length),
+                    () -> {
+                        sort.sort(array, pool);
+                        return array[array.length / 2];
+                    });
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Random random = new Random(1l);
+        int[] input = new int[n];
+        for (int i = 0; i < n; i++) input[i] = random.nextInt();
+        int[] expected = input.clone();
+        Arrays.sort(expected);
+
+        for (int threads = 1; threads <= 32; threads *= 2) {
+            run("parallelSort (merge)", threads, input, expected, Sorting::parallelSort);
+            run("parallelRadixSort", threads, input, expected, Sorting::parallelRadixSort);
+            run("Arrays.parallelSort", threads, input, expected, (array, pool) -> pool.submit(() -> Arrays.parallelSort(array)).join());
+        }
+    }
+}
@@ -0,0 +1,324 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the boxed Long[] searches of {@link SortedSearch} with the primitive
+ * long[] ones on the million-element list from SortedSearch.main (neighbouring
+ * elements differ by 1-3). Each operation looks up a batch of random keys from the
+ * list (the boxed InterpolationSearch doesn't terminate for some missing keys).
+ *
+ * With "index [maxMB]" it compares BinarySearch with the {@link SortedSearch.Index}
+ * types on arrays from 4 KB (L1-resident) up to maxMB megabytes (default 256; 1024
+ * needs a heap of several GB, since the layouts copy the keys).
+ *
+ * With "batch [n]" it compares one indexOf call per key with searchAll on batches
+ * of 10^4 to 10^6 random keys.
+ *
+ * With "distributions [n]" it compares binary, interpolation and adaptive
+ * interpolation search on uniform, Zipf, exponential and clustered lists, reporting
+ * the comparisons per lookup and the time.
+ *
+ * With "learned [n]" it compares the {@link SortedSearch.LearnedIndex} for several
+ * error bounds with BinarySearch and the Eytzinger index on n monotone IDs (default
+ * 10^7; 10^8 needs a heap of about 3 GB).
+ *
+ * With "sets [n]" it compares the {@link SortedSets} operations with looking up
+ * every element of the smaller set by BinarySearch, for size ratios from 1 to 4096.
+ */
+public class SearchBenchmark {
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("index")) {
+            index(args.length > 1 ? Long.parseLong(args[1]) : 256);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("batch")) {
+            batch(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("distributions")) {
+            distributions(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("learned")) {
+            learned(args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("sets")) {
+            sets(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+            return;
+        }
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(1l);
+        long[] list = new long[n];
+        for (int i = 1; i < n; i++) {
+            list[i] = list[i - 1] + random.nextInt(3) + 1;
+        }
+        Long[] boxedList = new Long[n];
+        for (int i = 0; i < n; i++) boxedList[i] = list[i];
+
+        long[] keys = new long[100_000];
+        Long[] boxedKeys = new Long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = list[random.nextInt(n)];
+            boxedKeys[i] = keys[i];
+        }
+
+        String[] names = { "LinearSearch", "BinarySearch", "InterpolationSearch" };
+        for (String name : names) {
+            // linear search is O(n) per lookup, so it gets fewer of them
+            int lookups = name.equals("LinearSearch") ? 200 : keys.length;
+            Bench.run(String.format("%-20s boxed     (%d lookups)", name, lookups), 2, 5, () -> {}, () -> {
+                SortedSearch.Search search = create(name);
+                long found = 0;
+                for (int i = 0; i < lookups; i++) {
+                    if (search.search(boxedList, boxedKeys[i])) found++;
+                }
+                return found;
+            });
+            Bench.run(String.format("%-20s primitive (%d lookups)", name, lookups), 2, 5, () -> {}, () -> {
+                SortedSearch.Search search = create(name);
+                long found = 0;
+                for (int i = 0; i < lookups; i++) {
+                    if (search.indexOf(list, keys[i]) >= 0) found++;
+                }
+                return found;
+            });
+            Bench.run(String.format("%-20s counting  (%d lookups)", name, lookups), 2, 5, () -> {}, () -> {
+                SortedSearch.Search search = create(name).countingComparisons();
+                for (int i = 0; i < lookups; i++) {
+                    search.indexOf(list, keys[i]);
+                }
+                return search.getNumberOfComparisons();
+            });
+        }
+    }
+
+    static void index(long maxMB) {
+        Random random = new Random(1l);
+        long[] keys = new long[1_000_000];
+        for (long bytes = 4096; bytes <= maxMB << 20; bytes *= 4) {
+            int n = (int) (bytes / Long.BYTES);
+            long[] list = new long[n];
+            for (int i = 1; i < n; i++) {
+                list[i] = list[i - 1] + random.nextInt(3) + 1;
+            }
+            // about half of the keys are in the list
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = (long) (random.nextDouble() * (list[n - 1] + 1));
+            }
+            System.out.printf("%n%,d keys (%,d KB), %,d lookups per op%n", n, bytes >> 10, keys.length);
+
+            SortedSearch.Search binary = new SortedSearch.BinarySearch();
+            Bench.run("BinarySearch.indexOf", 2, 5, () -> {}, () -> {
+                long sum = 0;
+                for (long key : keys) sum += binary.indexOf(list, key);
+                return sum;
+            });
+            String[] names = { "BranchlessIndex", "EytzingerIndex", "BlockedIndex" };
+            for (String name : names) {
+                long start = System.nanoTime();
+                SortedSearch.Index index = createIndex(name, list);
+                long buildMs = (System.nanoTime() - start) / 1_000_000;
+                Bench.run(String.format("%-16s lowerBound (build %d ms)", name, buildMs), 2, 5, () -> {}, () -> {
+                    long sum = 0;
+                    for (long key : keys) sum += index.lowerBound(key);
+                    return sum;
+                });
+            }
+        }
+    }
+
+    static void batch(int n) {
+        Random random = new Random(1l);
+        long[] list = new long[n];
+        for (int i = 1; i < n; i++) {
+            list[i] = list[i - 1] + random.nextInt(3) + 1;
+        }
+        for (int m = 10_000; m <= 1_000_000; m *= 10) {
+            long[] keys = new long[m];
+            for (int i = 0; i < m; i++) {
+                keys[i] = (long) (random.nextDouble() * (list[n - 1] + 1));
+            }
+            int[] out = new int[m];
+            System.out.printf("%n%,d keys against %,d elements%n", m, n);
+            SortedSearch.Search binary = new SortedSearch.BinarySearch();
+            Bench.run("BinarySearch indexOf per key", 10, 10, () -> {}, () -> {
+                long sum = 0;
+                for (long key : keys) sum += binary.indexOf(list, key);
+                return sum;
+            });
+            Bench.run("BinarySearch searchAll", 10, 10, () -> {}, () -> {
+                binary.searchAll(list, keys, out);
+                return out[out.length - 1];
+            });
+            // one linear scan per key would take n * m steps, so only the batch runs
+            SortedSearch.Search linear = new SortedSearch.LinearSearch();
+            Bench.run("LinearSearch searchAll", 10, 10, () -> {}, () -> {
+                linear.searchAll(list, keys, out);
+                return out[out.length - 1];
+            });
+        }
+    }
+
+    static void distributions(int n) {
+        Random random = new Random(1l);
+        String[] distributions = { "uniform", "zipf", "exponential", "clustered" };
+        String[] names = { "BinarySearch", "InterpolationSearch", "AdaptiveInterpolationSearch" };
+        for (String distribution : distributions) {
+            long[] list = sortedList(distribution, n, random);
+            // half of the keys are in the list, the other half lies between its values
+            long[] keys = new long[100_000];
+            for (int i = 0; i < keys.length; i++) {
+                int j = random.nextInt(n);
+                keys[i] = i % 2 == 0 || j == n - 1 ? list[j] : list[j] + (list[j + 1] - list[j]) / 2;
+            }
+            System.out.printf("%n%s, %,d elements%n", distribution, n);
+            for (String name : names) {
+                // plain interpolation degrades to a linear walk on skewed lists, so the
+                // number of timed lookups is capped at about 10^8 comparisons
+                SortedSearch.Search counting = create(name).countingComparisons();
+                int sample = 1000;
+                for (int i = 0; i < sample; i++) counting.indexOf(list, keys[i]);
+                double perLookup = (double) counting.getNumberOfComparisons() / sample;
+                int lookups = (int) Math.max(100, Math.min(keys.length, 1e8 / perLookup));
+                SortedSearch.Search search = create(name);
+                Bench.run(String.format("%-28s %8.1f cmp/lookup (%d lookups)", name, perLookup, lookups), 2, 5, () -> {}, () -> {
+                    long sum = 0;
+                    for (int i = 0; i < lookups; i++) sum += search.indexOf(list, keys[i]);
+                    return sum;
+                });
+            }
+        }
+    }
+
+    static void learned(int n) {
+        Random random = new Random(1l);
+        // IDs with small gaps and an occasional jump, e.g. from deleted ranges
+        long[] ids = new long[n];
+        for (int i = 1; i < n; i++) {
+            ids[i] = ids[i - 1] + 1 + (random.nextInt(10_000) == 0 ? random.nextInt(1_000_000) : random.nextInt(3));
+        }
+        long[] keys = new long[1_000_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (long) (random.nextDouble() * (ids[n - 1] + 1));
+        }
+        System.out.printf("%,d IDs (%,d MB), %,d lookups per op%n", n, ((long) n * Long.BYTES) >> 20, keys.length);
+
+        SortedSearch.Search binary = new SortedSearch.BinarySearch();
+        Bench.run("BinarySearch.indexOf", 2, 5, () -> {}, () -> {
+            long sum = 0;
+            for (long key : keys) sum += binary.indexOf(ids, key);
+            return sum;
+        });
+        long start = System.nanoTime();
+        SortedSearch.Index eytzinger = new SortedSearch.EytzingerIndex(ids);
+        long buildMs = (System.nanoTime() - start) / 1_000_000;
+        lookups(String.format("EytzingerIndex (build %d ms, %,d KB)", buildMs, (12L * n) >> 10), eytzinger, keys);
+
+        for (int epsilon : new int[] { 8, 32, 128, 512 }) {
+            start = System.nanoTime();
+            SortedSearch.LearnedIndex learned = new SortedSearch.LearnedIndex(ids, epsilon);
+            buildMs = (System.nanoTime() - start) / 1_000_000;
+            lookups(String.format("LearnedIndex eps=%-4d (build %d ms, %,d segments, %,d KB)", epsilon, buildMs,
+                    learned.getNumberOfSegments(), learned.getModelBytes() >> 10), learned, keys);
+        }
+    }
+
+    static void lookups(String name, SortedSearch.Index index, long[] keys) {
+        Bench.run(name, 2, 5, () -> {}, () -> {
+            long sum = 0;
+            for (long key : keys) sum += index.lowerBound(key);
+            return sum;
+        });
+    }
+
+    static void sets(int n) {
+        Random random = new Random(1l);
+        long[] large = randomSet(n, random);
+        SortedSearch.Search binary = new SortedSearch.BinarySearch();
+        for (int ratio = 1; ratio <= 4096; ratio *= 16) {
+            long[] small = randomSet(n / ratio, random);
+            System.out.printf("%n%,d and %,d elements%n", large.length, small.length);
+            Bench.run("BinarySearch per element", 2, 5, () -> {}, () -> {
+                long[] out = new long[small.length];
+                int count = 0;
+                for (long x : small) {
+                    if (binary.search(large, x)) out[count++] = x;
+                }
+                return count;
+            });
+            Bench.run("SortedSets.intersect", 2, 5, () -> {}, () -> SortedSets.intersect(small, large).length);
+            Bench.run("SortedSets.union", 2, 5, () -> {}, () -> SortedSets.union(small, large).length);
+            Bench.run("SortedSets.difference (large - small)", 2, 5, () -> {}, () -> SortedSets.difference(large, small).length);
+        }
+
+        long[][] lists = { large, randomSet(n / 2, random), randomSet(n / 8, random), randomSet(n / 64, random) };
+        System.out.printf("%n4 lists of %,d to %,d elements%n", n / 64, n);
+        Bench.run("BinarySearch per element of the shortest", 2, 5, () -> {}, () -> {
+            int count = 0;
+            for (long x : lists[3]) {
+                if (binary.search(lists[0], x) && binary.search(lists[1], x) && binary.search(lists[2], x)) count++;
+            }
+            return count;
+        });
+        Bench.run("SortedSets.intersectAll", 2, 5, () -> {}, () -> SortedSets.intersectAll(lists).length);
+    }
+
+    /** n distinct values from [0, 4n), sorted. */
+    static long[] randomSet(int n, Random random) {
+        long[] set = new long[4 * n];
+        for (int i = 0; i < set.length; i++) set[i] = i;
+        for (int i = 0; i < n; i++) {
+            int j = i + random.nextInt(set.length - i);
+            long tmp = set[i];
+            set[i] = set[j];
+            set[j] = tmp;
+        }
+        long[] result = Arrays.copyOf(set, n);
+        Arrays.sort(result);
+        return result;
+    }
+
+    static long[] sortedList(String distribution, int n, Random random) {
+        long[] list = new long[n];
+        switch (distribution) {
+            case "uniform":
+                for (int i = 0; i < n; i++) list[i] = random.nextLong() >>> 2;
+                break;
+            case "zipf":
+                // Pareto-distributed values with exponent 1: many small ones, a very long tail
+                for (int i = 0; i < n; i++) list[i] = (long) Math.min(Long.MAX_VALUE >> 2, 1 / (1 - random.nextDouble()));
+                break;
+            case "exponential":
+                // like the 2^k list in SortedSearch.main, stretched to n elements
+                for (int i = 0; i < n; i++) list[i] = (long) Math.pow(2, 62.0 * i / n) + i;
+                break;
+            default:
+                // 100 dense clusters at random positions
+                int clusterSize = (n + 99) / 100;
+                for (int i = 0; i < n; i++) {
+                    list[i] = i % clusterSize == 0 ? random.nextLong() >>> 2 : list[i - 1] + random.nextInt(3) + 1;
+                }
+        }
+        Arrays.sort(list);
+        return list;
+    }
+
+    static SortedSearch.Index createIndex(String name, long[] list) {
+        switch (name) {
+            case "BranchlessIndex": return new SortedSearch.BranchlessIndex(list);
+            case "EytzingerIndex": return new SortedSearch.EytzingerIndex(list);
+            default: return new SortedSearch.BlockedIndex(list);
+        }
+    }
+
+    static SortedSearch.Search create(String name) {
+        switch (name) {
+            case "LinearSearch": return new SortedSearch.LinearSearch();
+            case "BinarySearch": return new SortedSearch.BinarySearch();
+            case "AdaptiveInterpolationSearch": return new SortedSearch.AdaptiveInterpolationSearch();
+            default: return new SortedSearch.InterpolationSearch();
+        }
+    }
+}
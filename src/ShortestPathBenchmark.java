@@ -0,0 +1,174 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Runs Dijkstra's and Prim's algorithm on a random sparse graph, once with an
+ * {@link IndexedDaryHeap} using decreaseKey and once with the lazy approach of
+ * re-inserting a vertex on every improvement into a {@link LongPayloadDaryHeap}
+ * and skipping stale entries when they come out.
+ */
+public class ShortestPathBenchmark {
+
+    /** A weighted graph in compressed sparse row form. */
+    static class Graph {
+        final int[] offsets; // edges of vertex v are at offsets[v] .. offsets[v+1]-1
+        final int[] targets;
+        final int[] weights;
+
+        Graph(int[] offsets, int[] targets, int[] weights) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+        }
+
+        int numVertices() {
+            return offsets.length - 1;
+        }
+
+        /** Random undirected graph: a path through all vertices (so it's connected) plus random edges. */
+        static Graph random(int numVertices, int averageDegree, Random random) {
+            int numEdges = (numVertices - 1) + numVertices * (averageDegree / 2);
+            int[] from = new int[numEdges];
+            int[] to = new int[numEdges];
+            for (int i = 0; i < numVertices - 1; i++) {
+                from[i] = i;
+                to[i] = i + 1;
+            }
+            for (int i = numVertices - 1; i < numEdges; i++) {
+                from[i] = random.nextInt(numVertices);
+                to[i] = random.nextInt(numVertices);
+            }
+
+            int[] offsets = new int[numVertices + 1];
+            for (int i = 0; i < numEdges; i++) {
+                offsets[from[i] + 1]++;
+                offsets[to[i] + 1]++;
+            }
+            for (int v = 0; v < numVertices; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] fill = Arrays.copyOf(offsets, numVertices);
+            int[] targets = new int[2 * numEdges];
+            int[] weights = new int[2 * numEdges];
+            for (int i = 0; i < numEdges; i++) {
+                int weight = 1 + random.nextInt(1000);
+                targets[fill[from[i]]] = to[i];
+                weights[fill[from[i]]++] = weight;
+                targets[fill[to[i]]] = from[i];
+                weights[fill[to[i]]++] = weight;
+            }
+            return new Graph(offsets, targets, weights);
+        }
+    }
+
+    static long[] dijkstraIndexed(Graph graph, int source, int d) {
+        long[] dist = new long[graph.numVertices()];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        IndexedDaryHeap heap = new IndexedDaryHeap(d, graph.numVertices());
+        dist[source] = 0;
+        heap.add(source, 0);
+        while (!heap.isEmpty()) {
+            int v = heap.deleteMin();
+            for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                int w = graph.targets[e];
+                long newDist = dist[v] + graph.weights[e];
+                if (newDist < dist[w]) {
+                    if (heap.contains(w)) {
+                        heap.decreaseKey(w, newDist);
+                    } else {
+                        heap.add(w, newDist);
+                    }
+                    dist[w] = newDist;
+                }
+            }
+        }
+        return dist;
+    }
+
+    static long[] dijkstraLazy(Graph graph, int source, int d) {
+        long[] dist = new long[graph.numVertices()];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        LongPayloadDaryHeap heap = new LongPayloadDaryHeap(d);
+        dist[source] = 0;
+        heap.add(0, source);
+        while (!heap.isEmpty()) {
+            long key = heap.minKey();
+            int v = heap.deleteMin();
+            if (key > dist[v]) continue; // stale entry
+            for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                int w = graph.targets[e];
+                long newDist = key + graph.weights[e];
+                if (newDist < dist[w]) {
+                    dist[w] = newDist;
+                    heap.add(newDist, w);
+                }
+            }
+        }
+        return dist;
+    }
+
+    /** Returns the weight of a minimum spanning tree. */
+    static long primIndexed(Graph graph, int d) {
+        int n = graph.numVertices();
+        boolean[] inTree = new boolean[n];
+        IndexedDaryHeap heap = new IndexedDaryHeap(d, n);
+        long total = 0;
+        heap.add(0, 0);
+        while (!heap.isEmpty()) {
+            total += heap.minKey();
+            int v = heap.deleteMin();
+            inTree[v] = true;
+            for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                int w = graph.targets[e];
+                if (inTree[w]) continue;
+                if (!heap.contains(w)) {
+                    heap.add(w, graph.weights[e]);
+                } else if (graph.weights[e] < heap.keyOf(w)) {
+                    heap.decreaseKey(w, graph.weights[e]);
+                }
+            }
+        }
+        return total;
+    }
+
+    static long primLazy(Graph graph, int d) {
+        int n = graph.numVertices();
+        boolean[] inTree = new boolean[n];
+        LongPayloadDaryHeap heap = new LongPayloadDaryHeap(d);
+        long total = 0;
+        heap.add(0, 0);
+        while (!heap.isEmpty()) {
+            long key = heap.minKey();
+            int v = heap.deleteMin();
+            if (inTree[v]) continue; // stale entry
+            inTree[v] = true;
+            total += key;
+            for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                if (!inTree[graph.targets[e]]) heap.add(graph.weights[e], graph.targets[e]);
+            }
+        }
+        return total;
+    }
+
+    public static void main(String[] args) {
+        int numVertices = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int averageDegree = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        Graph graph = Graph.random(numVertices, averageDegree, new Random(1l));
+        System.out.println("Random graph with " + numVertices + " vertices and " + graph.targets.length / 2 + " edges");
+
+        long[] expected = dijkstraIndexed(graph, 0, 2);
+        long expectedTree = primIndexed(graph, 2);
+        for (int d : new int[] { 2, 4, 8 }) {
+            if (!Arrays.equals(expected, dijkstraLazy(graph, 0, d)) || !Arrays.equals(expected, dijkstraIndexed(graph, 0, d))) {
+                System.out.println("Error: Dijkstra variants disagree for d=" + d);
+            }
+            if (primLazy(graph, d) != expectedTree || primIndexed(graph, d) != expectedTree) {
+                System.out.println("Error: Prim variants disagree for d=" + d);
+            }
+            Bench.run("Dijkstra indexed (decreaseKey)  d=" + d, 2, 5, () -> {}, () -> dijkstraIndexed(graph, 0, d)[numVertices - 1]);
+            Bench.run("Dijkstra lazy deletion          d=" + d, 2, 5, () -> {}, () -> dijkstraLazy(graph, 0, d)[numVertices - 1]);
+            Bench.run("Prim indexed (decreaseKey)      d=" + d, 2, 5, () -> {}, () -> primIndexed(graph, d));
+            Bench.run("Prim lazy deletion              d=" + d, 2, 5, () -> {}, () -> primLazy(graph, d));
+        }
+    }
+}
@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Random;
 
@@ -5,6 +6,9 @@ public class SortedSearch {
 
   public static abstract class Search {
     protected CountingComparator comparator;
+    // Counting on the primitive paths is off by default, so lookups don't pay for it.
+    protected boolean countComparisons;
+    protected int primitiveComparisons;
 
     public Search() {
       this.comparator = new CountingComparator();
@@ -12,8 +16,85 @@ public class SortedSearch {
 
     public abstract boolean search(Long[] sortedList, Long key);
 
+    /**
+     * Returns the index of the key, or (-(insertion point) - 1) if it isn't in the list,
+     * like {@link java.util.Arrays#binarySearch(long[], long)}.
+     */
+    public abstract int indexOf(long[] sortedList, long key);
+
+    public abstract int indexOf(int[] sortedList, int key);
+
+    public boolean search(long[] sortedList, long key) {
+      return indexOf(sortedList, key) >= 0;
+    }
+
+    public boolean search(int[] sortedList, int key) {
+      return indexOf(sortedList, key) >= 0;
+    }
+
+    /**
+     * Looks up a whole batch of keys: outIdx[i] becomes indexOf(sortedList, keys[i]).
+     * The keys are put in ascending order first (unless they already are), so that
+     * consecutive lookups touch neighbouring parts of the list.
+     */
+    public void searchAll(long[] sortedList, long[] keys, int[] outIdx) {
+      if (outIdx.length < keys.length) throw new IllegalArgumentException("outIdx is shorter than keys");
+      int[] order = new int[keys.length];
+      for (int i = 0; i < order.length; i++) order[i] = i;
+      long[] queries = keys;
+      for (int i = 1; i < keys.length; i++) {
+        if (keys[i - 1] > keys[i]) {
+          queries = keys.clone();
+          Sorting.sortByKey(queries, order);
+          break;
+        }
+      }
+      searchSorted(sortedList, queries, order, outIdx);
+    }
+
+    /** Answers the ascending queries; the result for queries[q] goes to outIdx[order[q]]. */
+    protected void searchSorted(long[] sortedList, long[] queries, int[] order, int[] outIdx) {
+      for (int q = 0; q < queries.length; q++) {
+        outIdx[order[q]] = indexOf(sortedList, queries[q]);
+      }
+    }
+
+    /**
+     * Answers ascending queries with a single forward scan over the list, O(n + m) in
+     * total. The scan first skips whole blocks of BLOCK elements by looking only at
+     * their last element and then walks the remaining tail one element at a time.
+     */
+    protected void mergeJoin(long[] sortedList, long[] queries, int[] order, int[] outIdx) {
+      final int BLOCK = 8;
+      boolean count = this.countComparisons;
+      int comparisons = 0;
+      int n = sortedList.length;
+      int i = 0;
+      for (int q = 0; q < queries.length; q++) {
+        long key = queries[q];
+        while (i + BLOCK <= n && sortedList[i + BLOCK - 1] < key) {
+          if (count) comparisons++;
+          i += BLOCK;
+        }
+        if (count && i + BLOCK <= n) comparisons++; // the block check that stopped the skip
+        while (i < n && sortedList[i] < key) {
+          if (count) comparisons++;
+          i++;
+        }
+        if (count) comparisons += i < n ? 2 : 0;
+        outIdx[order[q]] = (i < n && sortedList[i] == key) ? i : -(i + 1);
+      }
+      if (count) this.primitiveComparisons += comparisons;
+    }
+
+    /** Makes the primitive searches count their comparisons as well. */
+    public Search countingComparisons() {
+      this.countComparisons = true;
+      return this;
+    }
+
     public int getNumberOfComparisons() {
-      return this.comparator.getNumberOfComparisons();
+      return this.comparator.getNumberOfComparisons() + this.primitiveComparisons;
     }
   }
 
@@ -32,10 +113,42 @@ public class SortedSearch {
       }
       return false;
     }
+
+    @Override
+    public int indexOf(long[] sortedList, long key) {
+      boolean count = this.countComparisons;
+      int comparisons = 0;
+      int i = 0;
+      // the list is sorted, so the scan can stop at the first element >= key
+      while (i < sortedList.length && sortedList[i] < key) {
+        if (count) comparisons++;
+        i++;
+      }
+      if (count) this.primitiveComparisons += comparisons + (i < sortedList.length ? 2 : 0);
+      return (i < sortedList.length && sortedList[i] == key) ? i : -(i + 1);
+    }
+
+    @Override
+    public int indexOf(int[] sortedList, int key) {
+      boolean count = this.countComparisons;
+      int comparisons = 0;
+      int i = 0;
+      while (i < sortedList.length && sortedList[i] < key) {
+        if (count) comparisons++;
+        i++;
+      }
+      if (count) this.primitiveComparisons += comparisons + (i < sortedList.length ? 2 : 0);
+      return (i < sortedList.length && sortedList[i] == key) ? i : -(i + 1);
+    }
+
+    // One scan over the list for the whole batch instead of one scan per key.
+    @Override
+    protected void searchSorted(long[] sortedList, long[] queries, int[] order, int[] outIdx) {
+      mergeJoin(sortedList, queries, order, outIdx);
+    }
   }
 
   public static class BinarySearch extends Search {
-
     @Override
     public boolean search(Long[] sortedList, Long key) {
       int low = 0; // untere Begrenzung fuer Array
@@ -51,6 +164,146 @@ public class SortedSearch {
         if (comparison > 0) high = mid - 1;
       }
     }
+
+    @Override
+    public int indexOf(long[] sortedList, long key) {
+      boolean count = this.countComparisons;
+      int comparisons = 0;
+      int low = 0;
+      int high = sortedList.length - 1;
+
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        long value = sortedList[mid];
+        if (count) comparisons++;
+        if (value < key) {
+          low = mid + 1;
+        } else if (value > key) {
+          high = mid - 1;
+        } else {
+          if (count) this.primitiveComparisons += comparisons;
+          return mid;
+        }
+      }
+      if (count) this.primitiveComparisons += comparisons;
+      return -(low + 1);
+    }
+
+    @Override
+    public int indexOf(int[] sortedList, int key) {
+      boolean count = this.countComparisons;
+      int comparisons = 0;
+      int low = 0;
+      int high = sortedList.length - 1;
+
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int value = sortedList[mid];
+        if (count) comparisons++;
+        if (value < key) {
+          low = mid + 1;
+        } else if (value > key) {
+          high = mid - 1;
+        } else {
+          if (count) this.primitiveComparisons += comparisons;
+          return mid;
+        }
+      }
+      if (count) this.primitiveComparisons += comparisons;
+      return -(low + 1);
+    }
+
+    /**
+     * Batches with m log n > n / 8 are merge-joined with the list, since a sequential
+     * scan that skips blocks of 8 is cheaper than that many random probes. Otherwise
+     * the ascending queries are dealt to 8 lanes of consecutive queries, and one query
+     * of every lane is searched at a time with lowerBound8. The lanes go down different
+     * paths, so the CPU can have their cache misses in flight at once, while the
+     * successive queries of a lane still hit the lines its predecessor brought in.
+     */
+    @Override
+    protected void searchSorted(long[] sortedList, long[] queries, int[] order, int[] outIdx) {
+      int n = sortedList.length;
+      int m = queries.length;
+      if ((long) m * (32 - Integer.numberOfLeadingZeros(n)) > n / 8) {
+        mergeJoin(sortedList, queries, order, outIdx);
+        return;
+      }
+      int laneLength = (m + 7) / 8;
+      int[] lanes = new int[8];
+      int[] bounds = new int[8];
+      for (int t = 0; t < laneLength; t++) {
+        int group = 0;
+        for (int lane = 0; lane < 8; lane++) {
+          int q = lane * laneLength + t;
+          if (q < m) lanes[group++] = q;
+        }
+        int levels = lowerBound8(sortedList, queries, lanes, group, bounds);
+        int comparisons = group * levels;
+        for (int j = 0; j < group; j++) {
+          int q = lanes[j];
+          int i = bounds[j];
+          if (i < n) comparisons++;
+          outIdx[order[q]] = (i < n && sortedList[i] == queries[q]) ? i : -(i + 1);
+        }
+        if (this.countComparisons) this.primitiveComparisons += comparisons;
+      }
+    }
+
+    /**
+     * Writes the lower bounds of queries[lanes[0..group-1]] to bounds. The eight
+     * searches are kept in local variables and advanced together, one level per
+     * iteration; missing lanes repeat the last query. Written out by hand because the
+     * JIT keeps an array of positions in memory, which serializes the loads again.
+     * Returns the number of levels, that is the comparisons made by each lane.
+     */
+    private static int lowerBound8(long[] a, long[] queries, int[] lanes, int group, int[] bounds) {
+      long k0 = queries[lanes[0]];
+      long k1 = queries[lanes[Math.min(1, group - 1)]];
+      long k2 = queries[lanes[Math.min(2, group - 1)]];
+      long k3 = queries[lanes[Math.min(3, group - 1)]];
+      long k4 = queries[lanes[Math.min(4, group - 1)]];
+      long k5 = queries[lanes[Math.min(5, group - 1)]];
+      long k6 = queries[lanes[Math.min(6, group - 1)]];
+      long k7 = queries[lanes[Math.min(7, group - 1)]];
+      int b0 = 0, b1 = 0, b2 = 0, b3 = 0, b4 = 0, b5 = 0, b6 = 0, b7 = 0;
+      int len = a.length;
+      int levels = 0;
+      while (len > 1) {
+        levels++;
+        int half = len >>> 1;
+        int last = half - 1;
+        b0 = a[b0 + last] < k0 ? b0 + half : b0;
+        b1 = a[b1 + last] < k1 ? b1 + half : b1;
+        b2 = a[b2 + last] < k2 ? b2 + half : b2;
+        b3 = a[b3 + last] < k3 ? b3 + half : b3;
+        b4 = a[b4 + last] < k4 ? b4 + half : b4;
+        b5 = a[b5 + last] < k5 ? b5 + half : b5;
+        b6 = a[b6 + last] < k6 ? b6 + half : b6;
+        b7 = a[b7 + last] < k7 ? b7 + half : b7;
+        len -= half;
+      }
+      if (len == 1) {
+        levels++;
+        b0 += a[b0] < k0 ? 1 : 0;
+        b1 += a[b1] < k1 ? 1 : 0;
+        b2 += a[b2] < k2 ? 1 : 0;
+        b3 += a[b3] < k3 ? 1 : 0;
+        b4 += a[b4] < k4 ? 1 : 0;
+        b5 += a[b5] < k5 ? 1 : 0;
+        b6 += a[b6] < k6 ? 1 : 0;
+        b7 += a[b7] < k7 ? 1 : 0;
+      }
+      bounds[0] = b0;
+      bounds[1] = b1;
+      bounds[2] = b2;
+      bounds[3] = b3;
+      bounds[4] = b4;
+      bounds[5] = b5;
+      bounds[6] = b6;
+      bounds[7] = b7;
+      return levels;
+    }
   }
 
   public static class InterpolationSearch extends Search {
@@ -73,9 +326,726 @@ public class SortedSearch {
         if (comparison > 0) high = rank - 1;
       }
     }
+
+    // The estimate is computed in double, so neither key - low nor high - low can overflow.
+    @Override
+    public int indexOf(long[] sortedList, long key) {
+      boolean count = this.countComparisons;
+      int comparisons = 0;
+      int low = 0;
+      int high = sortedList.length - 1;
+
+      while (low <= high) {
+        long lowValue = sortedList[low];
+        long highValue = sortedList[high];
+        if (count) comparisons += 2;
+        if (key < lowValue) break;
+        if (key > highValue) {
+          low = high + 1;
+          break;
+        }
+        int rank = low;
+        if (highValue != lowValue) {
+          rank = low + (int) ((high - low) * (((double) key - lowValue) / ((double) highValue - lowValue)));
+          rank = Math.max(low, Math.min(high, rank)); // rounding may push the estimate out of range
+        }
+        long value = sortedList[rank];
+        if (count) comparisons++;
+        if (value < key) {
+          low = rank + 1;
+        } else if (value > key) {
+          high = rank - 1;
+        } else {
+          if (count) this.primitiveComparisons += comparisons;
+          return rank;
+        }
+      }
+      if (count) this.primitiveComparisons += comparisons;
+      return -(low + 1);
+    }
+
+    @Override
+    public int indexOf(int[] sortedList, int key) {
+      boolean count = this.countComparisons;
+      int comparisons = 0;
+      int low = 0;
+      int high = sortedList.length - 1;
+
+      while (low <= high) {
+        int lowValue = sortedList[low];
+        int highValue = sortedList[high];
+        if (count) comparisons += 2;
+        if (key < lowValue) break;
+        if (key > highValue) {
+          low = high + 1;
+          break;
+        }
+        int rank = low;
+        if (highValue != lowValue) {
+          rank = low + (int) ((high - low) * (((double) key - lowValue) / ((double) highValue - lowValue)));
+          rank = Math.max(low, Math.min(high, rank));
+        }
+        int value = sortedList[rank];
+        if (count) comparisons++;
+        if (value < key) {
+          low = rank + 1;
+        } else if (value > key) {
+          high = rank - 1;
+        } else {
+          if (count) this.primitiveComparisons += comparisons;
+          return rank;
+        }
+      }
+      if (count) this.primitiveComparisons += comparisons;
+      return -(low + 1);
+    }
+  }
+
+  /**
+   * Interpolation search that falls back to bisection whenever an interpolation step
+   * fails to at least halve the interval, so skewed data (e.g. the 2^k list in main)
+   * costs at most about 2 log n probes, while uniform data keeps the O(log log n) of
+   * plain interpolation. Estimates are computed in double and clamped to the
+   * interval, so neither large values nor rounding can overflow or leave it.
+   */
+  public static class AdaptiveInterpolationSearch extends Search {
+
+    /**
+     * Position of key in [low, high] if the values between lowValue and highValue were
+     * evenly spaced. A key outside of [lowValue, highValue] maps to low or high, where
+     * the probe then ends the search without separate range checks.
+     */
+    static int interpolate(int low, int high, double lowValue, double highValue, double key) {
+      if (highValue == lowValue) return low;
+      double estimate = low + (high - low) * ((key - lowValue) / (highValue - lowValue));
+      return estimate <= low ? low : estimate >= high ? high : (int) estimate;
+    }
+
+    @Override
+    public boolean search(Long[] sortedList, Long key) {
+      int low = 0;
+      int high = sortedList.length - 1;
+
+      while (low <= high) {
+        int size = high - low + 1;
+        int probe = interpolate(low, high, sortedList[low], sortedList[high], key);
+        int comparison = this.comparator.compare(sortedList[probe], key);
+        if (comparison == 0) return true;
+        if (comparison < 0) low = probe + 1;
+        else high = probe - 1;
+
+        if (low <= high && high - low + 1 > size / 2) { // interpolation was off, bisect once
+          int mid = (low + high) >>> 1;
+          comparison = this.comparator.compare(sortedList[mid], key);
+          if (comparison == 0) return true;
+          if (comparison < 0) low = mid + 1;
+          else high = mid - 1;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public int indexOf(long[] sortedList, long key) {
+      boolean count = this.countComparisons;
+      int comparisons = 0;
+      int low = 0;
+      int high = sortedList.length - 1;
+
+      while (low <= high) {
+        int size = high - low + 1;
+        int probe = interpolate(low, high, sortedList[low], sortedList[high], key);
+        long value = sortedList[probe];
+        if (count) comparisons++;
+        if (value == key) {
+          if (count) this.primitiveComparisons += comparisons;
+          return probe;
+        }
+        if (value < key) low = probe + 1;
+        else high = probe - 1;
+
+        if (low <= high && high - low + 1 > size / 2) {
+          int mid = (low + high) >>> 1;
+          value = sortedList[mid];
+          if (count) comparisons++;
+          if (value == key) {
+            if (count) this.primitiveComparisons += comparisons;
+            return mid;
+          }
+          if (value < key) low = mid + 1;
+          else high = mid - 1;
+        }
+      }
+      if (count) this.primitiveComparisons += comparisons;
+      return -(low + 1);
+    }
+
+    @Override
+    public int indexOf(int[] sortedList, int key) {
+      boolean count = this.countComparisons;
+      int comparisons = 0;
+      int low = 0;
+      int high = sortedList.length - 1;
+
+      while (low <= high) {
+        int size = high - low + 1;
+        int probe = interpolate(low, high, sortedList[low], sortedList[high], key);
+        int value = sortedList[probe];
+        if (count) comparisons++;
+        if (value == key) {
+          if (count) this.primitiveComparisons += comparisons;
+          return probe;
+        }
+        if (value < key) low = probe + 1;
+        else high = probe - 1;
+
+        if (low <= high && high - low + 1 > size / 2) {
+          int mid = (low + high) >>> 1;
+          value = sortedList[mid];
+          if (count) comparisons++;
+          if (value == key) {
+            if (count) this.primitiveComparisons += comparisons;
+            return mid;
+          }
+          if (value < key) low = mid + 1;
+          else high = mid - 1;
+        }
+      }
+      if (count) this.primitiveComparisons += comparisons;
+      return -(low + 1);
+    }
+  }
+
+  /**
+   * Exponential (galloping) search: starting at a hint, it probes 1, 2, 4, ... positions
+   * away until it has passed the key and then binary-searches the last step. A key d
+   * positions from the hint costs O(log d) comparisons, which makes it the search of
+   * choice for walking through a sorted array with ascending keys, e.g. in
+   * {@link SortedSets}. Without a hint it starts at position 0.
+   */
+  public static class ExponentialSearch extends Search {
+
+    @Override
+    public boolean search(Long[] sortedList, Long key) {
+      int high = 1;
+      while (high < sortedList.length && this.comparator.compare(sortedList[high - 1], key) < 0) high <<= 1;
+      int low = high >>> 1;
+      high = Math.min(high, sortedList.length);
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        int comparison = this.comparator.compare(sortedList[mid], key);
+        if (comparison == 0) return true;
+        if (comparison < 0) low = mid + 1;
+        else high = mid;
+      }
+      return false;
+    }
+
+    @Override
+    public int indexOf(long[] sortedList, long key) {
+      return indexOf(sortedList, key, 0);
+    }
+
+    @Override
+    public int indexOf(int[] sortedList, int key) {
+      return indexOf(sortedList, key, 0);
+    }
+
+    /** Like {@link #indexOf(long[], long)}, starting the search at the hint. */
+    public int indexOf(long[] sortedList, long key, int hint) {
+      if (sortedList.length == 0) return -1;
+      hint = Math.max(0, Math.min(sortedList.length - 1, hint));
+      int[] probes = this.countComparisons ? new int[1] : null;
+      int i;
+      if (sortedList[hint] < key) {
+        i = lowerBound(sortedList, hint + 1, sortedList.length, key, probes);
+      } else {
+        i = lowerBoundBackward(sortedList, 0, hint, key, probes);
+      }
+      // the probes, plus the comparison at the hint and the final one for equality
+      if (probes != null) this.primitiveComparisons += probes[0] + 1 + (i < sortedList.length ? 1 : 0);
+      return (i < sortedList.length && sortedList[i] == key) ? i : -(i + 1);
+    }
+
+    /** Like {@link #indexOf(int[], int)}, starting the search at the hint. */
+    public int indexOf(int[] sortedList, int key, int hint) {
+      if (sortedList.length == 0) return -1;
+      hint = Math.max(0, Math.min(sortedList.length - 1, hint));
+      int[] probes = this.countComparisons ? new int[1] : null;
+      int i;
+      if (sortedList[hint] < key) {
+        i = lowerBound(sortedList, hint + 1, sortedList.length, key, probes);
+      } else {
+        i = lowerBoundBackward(sortedList, 0, hint, key, probes);
+      }
+      // the probes, plus the comparison at the hint and the final one for equality
+      if (probes != null) this.primitiveComparisons += probes[0] + 1 + (i < sortedList.length ? 1 : 0);
+      return (i < sortedList.length && sortedList[i] == key) ? i : -(i + 1);
+    }
+
+    /** First position in a[from..to-1] whose value is >= key (to if none), galloping forward from from. */
+    public static int lowerBound(long[] a, int from, int to, long key) {
+      return lowerBound(a, from, to, key, null);
+    }
+
+    /** Like {@link #lowerBound(long[], int, int, long)}, adding the number of elements it compares to probes[0] unless probes is null. */
+    private static int lowerBound(long[] a, int from, int to, long key, int[] probes) {
+      int low = from;
+      int step = 1;
+      int high = from;
+      while (high < to && a[high] < key) {
+        if (probes != null) probes[0]++;
+        low = high + 1;
+        high = low + step; // may overflow for huge arrays, caught by the check below
+        if (high < 0 || high > to) high = to;
+        step <<= 1;
+      }
+      if (probes != null && high < to) probes[0]++; // the probe that stopped the gallop
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (probes != null) probes[0]++;
+        if (a[mid] < key) low = mid + 1;
+        else high = mid;
+      }
+      return low;
+    }
+
+    /** Like {@link #lowerBound(long[], int, int, long)} for ints. */
+    public static int lowerBound(int[] a, int from, int to, int key) {
+      return lowerBound(a, from, to, key, null);
+    }
+
+    private static int lowerBound(int[] a, int from, int to, int key, int[] probes) {
+      int low = from;
+      int step = 1;
+      int high = from;
+      while (high < to && a[high] < key) {
+        if (probes != null) probes[0]++;
+        low = high + 1;
+        high = low + step;
+        if (high < 0 || high > to) high = to;
+        step <<= 1;
+      }
+      if (probes != null && high < to) probes[0]++; // the probe that stopped the gallop
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (probes != null) probes[0]++;
+        if (a[mid] < key) low = mid + 1;
+        else high = mid;
+      }
+      return low;
+    }
+
+    /** First position in a[from..to] whose value is >= key, galloping backward from to, where a[to] >= key. */
+    private static int lowerBoundBackward(long[] a, int from, int to, long key, int[] probes) {
+      int high = to;
+      int step = 1;
+      int low = to - 1;
+      while (low >= from && a[low] >= key) {
+        if (probes != null) probes[0]++;
+        high = low;
+        low = high - step - 1;
+        step <<= 1;
+      }
+      if (probes != null && low >= from) probes[0]++; // the probe that stopped the gallop
+      low = Math.max(from, low + 1);
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (probes != null) probes[0]++;
+        if (a[mid] < key) low = mid + 1;
+        else high = mid;
+      }
+      return low;
+    }
+
+    private static int lowerBoundBackward(int[] a, int from, int to, int key, int[] probes) {
+      int high = to;
+      int step = 1;
+      int low = to - 1;
+      while (low >= from && a[low] >= key) {
+        if (probes != null) probes[0]++;
+        high = low;
+        low = high - step - 1;
+        step <<= 1;
+      }
+      if (probes != null && low >= from) probes[0]++; // the probe that stopped the gallop
+      low = Math.max(from, low + 1);
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (probes != null) probes[0]++;
+        if (a[mid] < key) low = mid + 1;
+        else high = mid;
+      }
+      return low;
+    }
+  }
+
+  /**
+   * A lookup structure built once over a sorted long[] for answering many queries.
+   * All positions refer to the sorted array the index was built from, which must
+   * not be modified afterwards.
+   */
+  public static abstract class Index {
+    protected final long[] sorted;
+
+    protected Index(long[] sorted) {
+      this.sorted = sorted;
+    }
+
+    /** Returns the first position whose value is >= key, or size() if there is none. */
+    public abstract int lowerBound(long key);
+
+    /** Returns the first position whose value is > key, or size() if there is none. */
+    public int upperBound(long key) {
+      return key == Long.MAX_VALUE ? this.sorted.length : lowerBound(key + 1);
+    }
+
+    public boolean contains(long key) {
+      int i = lowerBound(key);
+      return i < this.sorted.length && this.sorted[i] == key;
+    }
+
+    /** Returns the number of elements smaller than key. */
+    public int rank(long key) {
+      return lowerBound(key);
+    }
+
+    public int size() {
+      return this.sorted.length;
+    }
+  }
+
+  /**
+   * Binary search on the sorted array itself, written so that the only data-dependent
+   * choice is a conditional move: the loop always runs log2(n) times and the CPU never
+   * has to predict which half the key is in.
+   */
+  public static class BranchlessIndex extends Index {
+
+    public BranchlessIndex(long[] sorted) {
+      super(sorted);
+    }
+
+    @Override
+    public int lowerBound(long key) {
+      long[] a = this.sorted;
+      int len = a.length;
+      if (len == 0) return 0;
+      int base = 0;
+      while (len > 1) {
+        int half = len >>> 1;
+        base = a[base + half - 1] < key ? base + half : base;
+        len -= half;
+      }
+      return a[base] < key ? base + 1 : base;
+    }
+  }
+
+  /**
+   * Keeps the keys in Eytzinger (BFS) order: the children of node k are 2k and 2k+1,
+   * so the first levels of every search share a few cache lines and the nodes of
+   * deeper levels are read in a predictable pattern. A second array maps every node
+   * back to its position in the sorted array.
+   */
+  public static class EytzingerIndex extends Index {
+    private final long[] tree; // tree[1..n], tree[0] unused
+    private final int[] positions;
+
+    public EytzingerIndex(long[] sorted) {
+      super(sorted);
+      if (sorted.length >= 1 << 30) throw new IllegalArgumentException("too many keys for an Eytzinger index");
+      this.tree = new long[sorted.length + 1];
+      this.positions = new int[sorted.length + 1];
+      fill(1, 0);
+    }
+
+    /** Fills the subtree rooted at node k in order, starting with sorted[next]. */
+    private int fill(int k, int next) {
+      if (k <= this.sorted.length) {
+        next = fill(2 * k, next);
+        this.tree[k] = this.sorted[next];
+        this.positions[k] = next++;
+        next = fill(2 * k + 1, next);
+      }
+      return next;
+    }
+
+    @Override
+    public int lowerBound(long key) {
+      long[] t = this.tree;
+      int n = this.sorted.length;
+      int k = 1;
+      while (k <= n) {
+        k = 2 * k + (t[k] < key ? 1 : 0);
+      }
+      // k went right after the answer and left ever since: drop those left turns and the last right turn
+      k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+      return k == 0 ? n : this.positions[k];
+    }
+  }
+
+  /**
+   * A static B-tree (S-tree) with 16 keys per node, stored in BFS order without
+   * child pointers: the children of node k are k * 17 + 1 to k * 17 + 17. A node of
+   * longs spans two cache lines, so a search touches about log17(n) node pairs instead
+   * of log2(n) lines, and the 16 comparisons within a node are counted without branches.
+   * Empty slots of the last nodes hold Long.MAX_VALUE and map to position n.
+   */
+  public static class BlockedIndex extends Index {
+    public static final int NODE_KEYS = 16;
+
+    private final int numNodes;
+    private final long[] keys;
+    private final int[] positions;
+
+    public BlockedIndex(long[] sorted) {
+      super(sorted);
+      this.numNodes = (sorted.length + NODE_KEYS - 1) / NODE_KEYS;
+      // one extra slot so that positions[node + NODE_KEYS] can be read for every node
+      this.keys = new long[this.numNodes * NODE_KEYS + 1];
+      this.positions = new int[this.numNodes * NODE_KEYS + 1];
+      fill(0, 0);
+      this.keys[this.keys.length - 1] = Long.MAX_VALUE;
+      this.positions[this.positions.length - 1] = sorted.length;
+    }
+
+    private static int child(int node, int i) {
+      return node * (NODE_KEYS + 1) + i + 1;
+    }
+
+    /** Fills the subtree rooted at node in order, starting with sorted[next]. */
+    private int fill(int node, int next) {
+      if (node < this.numNodes) {
+        for (int i = 0; i < NODE_KEYS; i++) {
+          next = fill(child(node, i), next);
+          int slot = node * NODE_KEYS + i;
+          if (next < this.sorted.length) {
+            this.keys[slot] = this.sorted[next];
+            this.positions[slot] = next++;
+          } else {
+            this.keys[slot] = Long.MAX_VALUE;
+            this.positions[slot] = this.sorted.length;
+          }
+        }
+        next = fill(child(node, NODE_KEYS), next);
+      }
+      return next;
+    }
+
+    @Override
+    public int lowerBound(long key) {
+      long[] k = this.keys;
+      int result = this.sorted.length;
+      int node = 0;
+      while (node < this.numNodes) {
+        int base = node * NODE_KEYS;
+        int i = 0;
+        for (int j = 0; j < NODE_KEYS; j++) {
+          i += k[base + j] < key ? 1 : 0;
+        }
+        int position = this.positions[base + i];
+        result = i < NODE_KEYS ? position : result;
+        node = child(node, i);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * A learned index in the style of the PGM-index: a piecewise-linear model maps a key
+   * to its approximate position in the sorted array, and a lookup only binary-searches
+   * the 2 * epsilon + 3 positions around the prediction. The segments are fitted
+   * greedily with a shrinking cone, so every distinct key is predicted within epsilon
+   * of its first position. The first keys of the segments are indexed the same way,
+   * with RECURSIVE_EPSILON, until a single segment is left.
+   *
+   * Keys between two stored keys can be predicted further off, e.g. after a long run
+   * of duplicates; the search then notices that its window doesn't contain the answer
+   * and continues on the respective side.
+   */
+  public static class LearnedIndex extends Index {
+    public static final int RECURSIVE_EPSILON = 4;
+
+    /** Segments of one level: first key, slope and position of that first key. */
+    private static class Level {
+      final long[] keys;
+      final double[] slopes;
+      final int[] intercepts;
+
+      Level(long[] keys, double[] slopes, int[] intercepts) {
+        this.keys = keys;
+        this.slopes = slopes;
+        this.intercepts = intercepts;
+      }
+
+      /**
+       * Predicted position of key according to the segment, clamped to the positions
+       * the segment covers: keys in a gap after its last key belong right before the
+       * next segment's first position.
+       */
+      int predict(int segment, long key, int limit) {
+        long first = this.keys[segment];
+        if (key <= first) return this.intercepts[segment];
+        if (segment + 1 < this.intercepts.length) limit = this.intercepts[segment + 1];
+        double position = this.intercepts[segment] + this.slopes[segment] * distance(first, key);
+        return position >= limit ? limit : (int) position;
+      }
+    }
+
+    private final int epsilon;
+    // levels[0] is a single segment; the segments of every level predict positions in
+    // the next level's keys, those of the last level positions in the sorted array
+    private final Level[] levels;
+
+    public LearnedIndex(long[] sorted, int epsilon) {
+      super(sorted);
+      if (epsilon < 1) throw new IllegalArgumentException("epsilon must be positive");
+      this.epsilon = epsilon;
+
+      // the points to fit: every distinct key with its first position
+      long[] xs = new long[sorted.length];
+      int[] ys = new int[sorted.length];
+      int count = 0;
+      for (int i = 0; i < sorted.length; i++) {
+        if (i == 0 || sorted[i] != sorted[i - 1]) {
+          xs[count] = sorted[i];
+          ys[count++] = i;
+        }
+      }
+
+      Level[] bottomUp = new Level[32];
+      int depth = 0;
+      int eps = epsilon;
+      while (count > 0) {
+        Level level = fit(xs, ys, count, eps);
+        bottomUp[depth++] = level;
+        if (level.keys.length == 1) break;
+        xs = level.keys;
+        count = xs.length;
+        for (int i = 0; i < count; i++) ys[i] = i;
+        eps = RECURSIVE_EPSILON;
+      }
+      this.levels = new Level[depth];
+      for (int i = 0; i < depth; i++) this.levels[i] = bottomUp[depth - 1 - i];
+    }
+
+    /** key - first as an unsigned distance, so that keys of any range work. */
+    private static double distance(long first, long key) {
+      long d = key - first;
+      return d >= 0 ? d : d + 0x1p64;
+    }
+
+    /**
+     * Greedy segmentation: a segment starts at a point and keeps the range of slopes
+     * for which all following points stay within eps; it ends when that range is empty.
+     */
+    private static Level fit(long[] xs, int[] ys, int count, int eps) {
+      long[] keys = new long[count];
+      double[] slopes = new double[count];
+      int[] intercepts = new int[count];
+      int segments = 0;
+      int start = 0;
+      while (start < count) {
+        long x0 = xs[start];
+        int y0 = ys[start];
+        double minSlope = 0;
+        double maxSlope = Double.POSITIVE_INFINITY;
+        int end = start + 1;
+        while (end < count) {
+          double dx = distance(x0, xs[end]);
+          double low = (ys[end] - eps - y0) / dx;
+          double high = (ys[end] + eps - y0) / dx;
+          if (low > maxSlope || high < minSlope) break;
+          minSlope = Math.max(minSlope, low);
+          maxSlope = Math.min(maxSlope, high);
+          end++;
+        }
+        keys[segments] = x0;
+        intercepts[segments] = y0;
+        slopes[segments] = end == start + 1 ? 0 : (minSlope + maxSlope) / 2;
+        segments++;
+        start = end;
+      }
+      return new Level(Arrays.copyOf(keys, segments), Arrays.copyOf(slopes, segments),
+          Arrays.copyOf(intercepts, segments));
+    }
+
+    /**
+     * First position in a whose value is >= key (or > key if upper). Searches the
+     * window around the predicted position, or gallops away from it if the window
+     * doesn't contain the answer.
+     */
+    private static int search(long[] a, long key, int predicted, int eps, boolean upper) {
+      int low = Math.max(0, predicted - eps - 1);
+      int high = Math.min(a.length, predicted + eps + 2);
+      if (low > 0 && (upper ? a[low - 1] > key : a[low - 1] >= key)) { // answer lies left of the window
+        high = low - 1;
+        int step = 1;
+        low = high - 1;
+        while (low > 0 && (upper ? a[low] > key : a[low] >= key)) {
+          high = low;
+          step <<= 1;
+          low = Math.max(0, high - step);
+        }
+        low = Math.max(0, low);
+      } else if (high < a.length && (upper ? a[high] <= key : a[high] < key)) { // right of it
+        low = high + 1;
+        int step = 1;
+        high = Math.min(a.length, low + 1);
+        while (high < a.length && (upper ? a[high] <= key : a[high] < key)) {
+          low = high + 1;
+          step <<= 1;
+          high = Math.min(a.length, low + step);
+        }
+      }
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (upper ? a[mid] <= key : a[mid] < key) low = mid + 1;
+        else high = mid;
+      }
+      return low;
+    }
+
+    @Override
+    public int lowerBound(long key) {
+      if (this.levels.length == 0) return 0;
+      int segment = 0;
+      for (int l = 0; l + 1 < this.levels.length; l++) {
+        long[] nextKeys = this.levels[l + 1].keys;
+        int predicted = this.levels[l].predict(segment, key, nextKeys.length);
+        // the last segment whose first key is <= key
+        segment = Math.max(0, search(nextKeys, key, predicted, RECURSIVE_EPSILON, true) - 1);
+      }
+      int predicted = this.levels[this.levels.length - 1].predict(segment, key, this.sorted.length);
+      return search(this.sorted, key, predicted, this.epsilon, false);
+    }
+
+    public int getEpsilon() {
+      return this.epsilon;
+    }
+
+    public int getNumberOfLevels() {
+      return this.levels.length;
+    }
+
+    public int getNumberOfSegments() {
+      int segments = 0;
+      for (Level level : this.levels) segments += level.keys.length;
+      return segments;
+    }
+
+    /** Bytes taken by the model: a key, a slope and an intercept per segment. */
+    public long getModelBytes() {
+      return (long) getNumberOfSegments() * (Long.BYTES + Double.BYTES + Integer.BYTES);
+    }
   }
 
+  /**
+   * Counts the comparisons of one Search instance; with metrics on, they are also added
+   * to the thread-safe "SortedSearch" scope.
+   */
   public static class CountingComparator implements Comparator<Long> {
+    private static final Metrics.Scope METRICS = Metrics.scope("SortedSearch");
 
     private int numberOfComparisons;
 
@@ -86,6 +1056,7 @@ public class SortedSearch {
     @Override
     public int compare(Long o1, Long o2) {
       this.numberOfComparisons++;
+      if (Metrics.ENABLED) METRICS.count(Metrics.Event.COMPARISONS);
       return o1.compareTo(o2);
     }
 
@@ -224,6 +1195,10 @@ public class SortedSearch {
     located = search.search(list, (long) Math.pow(2d, 31d));
     System.out.println("\tInterpolation search: " + (located ? "located" : "did not locate")
         + " element \"2^31\" (" + search.getNumberOfComparisons() + " comparisons).");
+    search = new AdaptiveInterpolationSearch();
+    located = search.search(list, (long) Math.pow(2d, 31d));
+    System.out.println("\tAdaptive search:      " + (located ? "located" : "did not locate")
+        + " element \"2^31\" (" + search.getNumberOfComparisons() + " comparisons).");
   }
 
 }
@@ -0,0 +1,295 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Set operations on sorted arrays without duplicates, e.g. posting lists. Two sets
+ * of similar size are merged in a single pass; if one is more than GALLOP_RATIO
+ * times smaller, its elements are looked up in the larger one with
+ * {@link SortedSearch.ExponentialSearch}, which costs O(m log(n / m)) instead of
+ * O(n + m). The results are new arrays; the inputs are not modified.
+ */
+public class SortedSets {
+
+    // Size ratio above which the smaller set gallops through the larger one.
+    static final int GALLOP_RATIO = 16;
+
+    private static long[] trim(long[] array, int length) {
+        return length == array.length ? array : Arrays.copyOf(array, length);
+    }
+
+    private static int[] trim(int[] array, int length) {
+        return length == array.length ? array : Arrays.copyOf(array, length);
+    }
+
+    /** Elements contained in both a and b. */
+    public static long[] intersect(long[] a, long[] b) {
+        if (a.length > b.length) {
+            long[] tmp = a;
+            a = b;
+            b = tmp;
+        }
+        long[] out = new long[a.length];
+        int count = 0;
+        if ((long) a.length * GALLOP_RATIO < b.length) {
+            int j = 0;
+            for (long x : a) {
+                j = SortedSearch.ExponentialSearch.lowerBound(b, j, b.length, x);
+                if (j == b.length) break;
+                if (b[j] == x) out[count++] = x;
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length) {
+                long x = a[i];
+                long y = b[j];
+                if (x == y) out[count++] = x;
+                i += x <= y ? 1 : 0;
+                j += y <= x ? 1 : 0;
+            }
+        }
+        return trim(out, count);
+    }
+
+    /** Elements contained in a or b. */
+    public static long[] union(long[] a, long[] b) {
+        long[] out = new long[a.length + b.length];
+        int count = 0;
+        long[] small = a.length <= b.length ? a : b;
+        long[] large = small == a ? b : a;
+        if ((long) small.length * GALLOP_RATIO < large.length) {
+            // copy the stretches of the large set between the elements of the small one
+            int i = 0;
+            for (long y : small) {
+                int k = SortedSearch.ExponentialSearch.lowerBound(large, i, large.length, y);
+                System.arraycopy(large, i, out, count, k - i);
+                count += k - i;
+                out[count++] = y;
+                i = (k < large.length && large[k] == y) ? k + 1 : k;
+            }
+            System.arraycopy(large, i, out, count, large.length - i);
+            count += large.length - i;
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length) {
+                long x = a[i];
+                long y = b[j];
+                out[count++] = x <= y ? x : y;
+                i += x <= y ? 1 : 0;
+                j += y <= x ? 1 : 0;
+            }
+            System.arraycopy(a, i, out, count, a.length - i);
+            count += a.length - i;
+            System.arraycopy(b, j, out, count, b.length - j);
+            count += b.length - j;
+        }
+        return trim(out, count);
+    }
+
+    /** Elements contained in a but not in b. */
+    public static long[] difference(long[] a, long[] b) {
+        long[] out = new long[a.length];
+        int count = 0;
+        if ((long) a.length * GALLOP_RATIO < b.length) {
+            // look up every element of a in b
+            int j = 0;
+            for (long x : a) {
+                j = SortedSearch.ExponentialSearch.lowerBound(b, j, b.length, x);
+                if (j == b.length || b[j] != x) out[count++] = x;
+            }
+        } else if ((long) b.length * GALLOP_RATIO < a.length) {
+            // copy the stretches of a between the elements of b
+            int i = 0;
+            for (long y : b) {
+                int k = SortedSearch.ExponentialSearch.lowerBound(a, i, a.length, y);
+                System.arraycopy(a, i, out, count, k - i);
+                count += k - i;
+                i = (k < a.length && a[k] == y) ? k + 1 : k;
+            }
+            System.arraycopy(a, i, out, count, a.length - i);
+            count += a.length - i;
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length) {
+                long x = a[i];
+                long y = b[j];
+                if (x < y) out[count++] = x;
+                i += x <= y ? 1 : 0;
+                j += y <= x ? 1 : 0;
+            }
+            System.arraycopy(a, i, out, count, a.length - i);
+            count += a.length - i;
+        }
+        return trim(out, count);
+    }
+
+    /**
+     * Elements contained in all of the lists. The lists are visited from the shortest
+     * to the longest: every element of the shortest one is a candidate, which the
+     * others confirm by galloping forward from where they stopped for the previous
+     * candidate. If a list has no match, the candidate jumps ahead to the value it
+     * stopped at, so long stretches without common elements are skipped.
+     */
+    public static long[] intersectAll(long[]... lists) {
+        if (lists.length == 0) return new long[0];
+        long[][] byLength = lists.clone();
+        Arrays.sort(byLength, Comparator.comparingInt(list -> list.length));
+        long[] shortest = byLength[0];
+        long[] out = new long[shortest.length];
+        int count = 0;
+        int[] cursors = new int[byLength.length];
+        int candidate = 0;
+        search:
+        while (candidate < shortest.length) {
+            long value = shortest[candidate];
+            for (int l = 1; l < byLength.length; l++) {
+                long[] list = byLength[l];
+                int k = SortedSearch.ExponentialSearch.lowerBound(list, cursors[l], list.length, value);
+                cursors[l] = k;
+                if (k == list.length) break search;
+                if (list[k] != value) {
+                    candidate = SortedSearch.ExponentialSearch.lowerBound(shortest, candidate + 1, shortest.length, list[k]);
+                    continue search;
+                }
+            }
+            out[count++] = value;
+            candidate++;
+        }
+        return trim(out, count);
+    }
+
+    /** Like {@link #intersect(long[], long[])} for ints. */
+    public static int[] intersect(int[] a, int[] b) {
+        if (a.length > b.length) {
+            int[] tmp = a;
+            a = b;
+            b = tmp;
+        }
+        int[] out = new int[a.length];
+        int count = 0;
+        if ((long) a.length * GALLOP_RATIO < b.length) {
+            int j = 0;
+            for (int x : a) {
+                j = SortedSearch.ExponentialSearch.lowerBound(b, j, b.length, x);
+                if (j == b.length) break;
+                if (b[j] == x) out[count++] = x;
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length) {
+                int x = a[i];
+                int y = b[j];
+                if (x == y) out[count++] = x;
+                i += x <= y ? 1 : 0;
+                j += y <= x ? 1 : 0;
+            }
+        }
+        return trim(out, count);
+    }
+
+    /** Like {@link #union(long[], long[])} for ints. */
+    public static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int count = 0;
+        int[] small = a.length <= b.length ? a : b;
+        int[] large = small == a ? b : a;
+        if ((long) small.length * GALLOP_RATIO < large.length) {
+            // copy the stretches of the large set between the elements of the small one
+            int i = 0;
+            for (int y : small) {
+                int k = SortedSearch.ExponentialSearch.lowerBound(large, i, large.length, y);
+                System.arraycopy(large, i, out, count, k - i);
+                count += k - i;
+                out[count++] = y;
+                i = (k < large.length && large[k] == y) ? k + 1 : k;
+            }
+            System.arraycopy(large, i, out, count, large.length - i);
+            count += large.length - i;
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length) {
+                int x = a[i];
+                int y = b[j];
+                out[count++] = x <= y ? x : y;
+                i += x <= y ? 1 : 0;
+                j += y <= x ? 1 : 0;
+            }
+            System.arraycopy(a, i, out, count, a.length - i);
+            count += a.length - i;
+            System.arraycopy(b, j, out, count, b.length - j);
+            count += b.length - j;
+        }
+        return trim(out, count);
+    }
+
+    /** Like {@link #difference(long[], long[])} for ints. */
+    public static int[] difference(int[] a, int[] b) {
+        int[] out = new int[a.length];
+        int count = 0;
+        if ((long) a.length * GALLOP_RATIO < b.length) {
+            // look up every element of a in b
+            int j = 0;
+            for (int x : a) {
+                j = SortedSearch.ExponentialSearch.lowerBound(b, j, b.length, x);
+                if (j == b.length || b[j] != x) out[count++] = x;
+            }
+        } else if ((long) b.length * GALLOP_RATIO < a.length) {
+            // copy the stretches of a between the elements of b
+            int i = 0;
+            for (int y : b) {
+                int k = SortedSearch.ExponentialSearch.lowerBound(a, i, a.length, y);
+                System.arraycopy(a, i, out, count, k - i);
+                count += k - i;
+                i = (k < a.length && a[k] == y) ? k + 1 : k;
+            }
+            System.arraycopy(a, i, out, count, a.length - i);
+            count += a.length - i;
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length) {
+                int x = a[i];
+                int y = b[j];
+                if (x < y) out[count++] = x;
+                i += x <= y ? 1 : 0;
+                j += y <= x ? 1 : 0;
+            }
+            System.arraycopy(a, i, out, count, a.length - i);
+            count += a.length - i;
+        }
+        return trim(out, count);
+    }
+
+    /** Like {@link #intersectAll(long[]...)} for ints. */
+    public static int[] intersectAll(int[]... lists) {
+        if (lists.length == 0) return new int[0];
+        int[][] byLength = lists.clone();
+        Arrays.sort(byLength, Comparator.comparingInt(list -> list.length));
+        int[] shortest = byLength[0];
+        int[] out = new int[shortest.length];
+        int count = 0;
+        int[] cursors = new int[byLength.length];
+        int candidate = 0;
+        search:
+        while (candidate < shortest.length) {
+            int value = shortest[candidate];
+            for (int l = 1; l < byLength.length; l++) {
+                int[] list = byLength[l];
+                int k = SortedSearch.ExponentialSearch.lowerBound(list, cursors[l], list.length, value);
+                cursors[l] = k;
+                if (k == list.length) break search;
+                if (list[k] != value) {
+                    candidate = SortedSearch.ExponentialSearch.lowerBound(shortest, candidate + 1, shortest.length, list[k]);
+                    continue search;
+                }
+            }
+            out[count++] = value;
+            candidate++;
+        }
+        return trim(out, count);
+    }
+}
@@ -1,9 +1,25 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+
 public class Sorting {
+    private static final Metrics.Scope SELECTION_METRICS = Metrics.scope("Sorting.selectionSort");
+    private static final Metrics.Scope INSERTION_METRICS = Metrics.scope("Sorting.insertionSort");
+    private static final Metrics.Scope BUBBLE_METRICS = Metrics.scope("Sorting.bubbleSort");
+    private static final Metrics.Scope MERGE_METRICS = Metrics.scope("Sorting.mergeSort");
+    private static final Metrics.Scope QUICK_METRICS = Metrics.scope("Sorting.quickSort");
+    private static final Metrics.Scope INTRO_METRICS = Metrics.scope("Sorting.introSort");
+    private static final Metrics.Scope HEAP_METRICS = Metrics.scope("Sorting.heapSort");
+    private static final Metrics.Scope RADIX_METRICS = Metrics.scope("Sorting.radixSort");
+
     public static void selectionSort(int[] array) {
+        long comparisons = 0;
         for (int i = 0; i < array.length; i++) {
             int min = array[i];
             int minPos = i;
             for (int j = i; j < array.length; j++) {
+                comparisons++;
                 if (min > array[j]) {
                     min = array[j];
                     minPos = j;
@@ -12,21 +28,47 @@ public class Sorting {
             array[minPos] = array[i];
             array[i] = min;
         }
+        if (Metrics.ENABLED) {
+            SELECTION_METRICS.count(Metrics.Event.COMPARISONS, comparisons);
+            SELECTION_METRICS.count(Metrics.Event.SWAPS, array.length);
+        }
     }
 
     public static void insertionSort(int[] array) {
-        for (int i = 1; i < array.length; i++) {
+        insertionSort(array, 0, array.length);
+    }
+
+    /** Sorts array[from..to-1]. */
+    public static void insertionSort(int[] array, int from, int to) {
+        insertionSort(array, from, to, INSERTION_METRICS);
+    }
+
+    /** Sorts array[from..to-1] and counts its comparisons and moves in the given scope. */
+    private static void insertionSort(int[] array, int from, int to, Metrics.Scope metrics) {
+        long comparisons = 0;
+        long moves = 0;
+        for (int i = from+1; i < to; i++) {
             int value = array[i];
             int j = i-1;
-            while (j >= 0 && array[j] > value) {
+            while (j >= from && array[j] > value) {
                 array[j+1] = array[j];
                 j--;
             }
             array[j+1] = value;
+            moves += i - j;
+            // every shifted element took one comparison, plus the one that stopped the
+            // shift unless it ran past from
+            comparisons += (i - 1 - j) + (j >= from ? 1 : 0);
+        }
+        if (Metrics.ENABLED) {
+            metrics.count(Metrics.Event.COMPARISONS, comparisons);
+            metrics.count(Metrics.Event.MOVES, moves);
         }
     }
 
     public static void bubbleSort(int[] array) {
+        long passes = 0;
+        long swaps = 0;
         boolean swapped;
         do {
             swapped = false;
@@ -36,111 +78,936 @@ public class Sorting {
                     array[i+1] = array[i];
                     array[i] = tmp;
                     swapped = true;
+                    swaps++;
                 }
             }
+            passes++;
         } while (swapped);
+        if (Metrics.ENABLED) {
+            BUBBLE_METRICS.count(Metrics.Event.COMPARISONS, passes * Math.max(0, array.length - 1));
+            BUBBLE_METRICS.count(Metrics.Event.SWAPS, swaps);
+        }
     }
 
+    // Runs shorter than this are extended and finished with insertion sort.
+    private static final int MERGE_MIN_RUN = 32;
+    // After this many elements in a row from the same side, merge switches to galloping.
+    private static final int MERGE_MIN_GALLOP = 7;
+
     public static void mergeSort(int[] array) {
-        if (array.length == 1) return;
-        if (array.length == 2) {
-            if (array[0] > array[1]) { // swap
-                int tmp = array[1];
-                array[1] = array[0];
-                array[0] = tmp;
+        mergeSort(array, 0, array.length);
+    }
+
+    public static void mergeSort(int[] array, int from, int to) {
+        if (to - from < 2) return;
+        if (Metrics.ENABLED) MERGE_METRICS.count(Metrics.Event.ALLOCATIONS);
+        mergeSort(array, from, to, new int[to - from]);
+    }
+
+    /**
+     * Sorts array[from..to-1] with a natural merge sort: it splits the range into
+     * ascending runs (reversing descending ones, extending short ones to MERGE_MIN_RUN
+     * with insertion sort) and merges neighbouring runs bottom-up. The merges alternate
+     * between the array and the auxiliary buffer, which must hold at least
+     * {@code to - from} elements, so nothing else is allocated apart from the run
+     * boundaries.
+     */
+    public static void mergeSort(int[] array, int from, int to, int[] aux) {
+        mergeSort(array, from, to, aux, 0);
+    }
+
+    /** Like mergeSort(array, from, to, aux), but uses aux[auxFrom..auxFrom+to-from-1]. */
+    public static void mergeSort(int[] array, int from, int to, int[] aux, int auxFrom) {
+        checkRange(array.length, from, to);
+        if (to - from < 2) return;
+        if (auxFrom < 0 || aux.length - auxFrom < to - from) throw new IllegalArgumentException("auxiliary buffer is too small");
+
+        int[] runs = new int[(to - from) / MERGE_MIN_RUN + 2]; // run i is runs[i]..runs[i+1]-1
+        if (Metrics.ENABLED) MERGE_METRICS.count(Metrics.Event.ALLOCATIONS);
+        int numRuns = 0;
+        long comparisons = 0;
+        long swaps = 0;
+        long moves = 0;
+        int pos = from;
+        while (pos < to) {
+            runs[numRuns++] = pos;
+            int end = pos + 1;
+            if (end < to) {
+                if (array[end] < array[pos]) { // strictly descending, so reversing keeps it stable
+                    while (end < to && array[end] < array[end-1]) end++;
+                    reverse(array, pos, end);
+                    swaps += (end - pos) / 2;
+                } else {
+                    while (end < to && array[end] >= array[end-1]) end++;
+                }
+                // the first comparison picks the direction, the scan compares once per element
+                // of the run after the first plus the one that ended it
+                comparisons += 1 + (end - pos - 1) + (end < to ? 1 : 0);
+            }
+            if (end - pos < MERGE_MIN_RUN) {
+                end = Math.min(pos + MERGE_MIN_RUN, to);
+                insertionSort(array, pos, end, MERGE_METRICS);
             }
+            pos = end;
         }
+        runs[numRuns] = to;
+        // Galloping only pays off on presorted input with long natural runs; on random
+        // input a branch-free merge is faster.
+        boolean gallop = numRuns <= (to - from) / (2 * MERGE_MIN_RUN);
 
-        int[] left = new int[array.length/2];
-        int[] right = new int[array.length - array.length/2];
-
-        for (int i = 0; i < left.length; i++) { // copy to left sub-array
-            left[i] = array[i];
+        // The run boundaries are positions in array; position i is aux[i - auxShift].
+        int auxShift = from - auxFrom;
+        int[] src = array;
+        int[] dst = aux;
+        int srcShift = 0;
+        int dstShift = auxShift;
+        while (numRuns > 1) {
+            int merged = 0;
+            for (int r = 0; r < numRuns; r += 2) {
+                int lo = runs[r];
+                if (r + 1 == numRuns) { // odd run out, carry it over
+                    System.arraycopy(src, lo - srcShift, dst, lo - dstShift, runs[r+1] - lo);
+                } else {
+                    merge(src, lo - srcShift, runs[r+1] - srcShift, runs[r+2] - srcShift, dst, lo - dstShift, gallop);
+                }
+                runs[merged++] = lo;
+            }
+            moves += to - from; // every pass writes each element once, merged or carried over
+            runs[merged] = to;
+            numRuns = merged;
+            int[] tmp = src;
+            src = dst;
+            dst = tmp;
+            int tmpShift = srcShift;
+            srcShift = dstShift;
+            dstShift = tmpShift;
         }
-        for (int i = 0; i < right.length; i++) { // copy to right sub-array
-            right[i] = array[array.length/2+i];
+        if (src != array) {
+            System.arraycopy(src, auxFrom, array, from, to - from);
+            moves += to - from;
         }
-
-        mergeSort(left);
-        mergeSort(right);
-
-        int[] merged = merge(left, right);
-        for (int i = 0; i < array.length; i++) {
-            array[i] = merged[i];
+        if (Metrics.ENABLED) {
+            MERGE_METRICS.count(Metrics.Event.COMPARISONS, comparisons);
+            MERGE_METRICS.count(Metrics.Event.SWAPS, swaps);
+            MERGE_METRICS.count(Metrics.Event.MOVES, moves);
         }
     }
 
-    private static int[] merge(int[] left, int[] right) {
-        int[] merged = new int[left.length + right.length];
+    private static void reverse(int[] array, int from, int to) {
+        for (int i = from, j = to-1; i < j; i++, j--) {
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
 
-        int leftPointer = 0;
-        int rightPointer = 0;
-        int mergedPointer = 0;
+    /**
+     * Merges the sorted ranges src[lo..mid-1] and src[mid..hi-1] into dst from out on and
+     * counts its comparisons (the moves are counted per pass by the caller).
+     */
+    private static void merge(int[] src, int lo, int mid, int hi, int[] dst, int out, boolean gallop) {
+        if (src[mid-1] <= src[mid]) { // already in order
+            System.arraycopy(src, lo, dst, out, hi - lo);
+            if (Metrics.ENABLED) MERGE_METRICS.count(Metrics.Event.COMPARISONS);
+            return;
+        }
+        if (!gallop) {
+            int comparisons = mergeBranchFree(src, lo, mid, hi, dst, out);
+            if (Metrics.ENABLED) MERGE_METRICS.count(Metrics.Event.COMPARISONS, 1 + comparisons);
+            return;
+        }
 
-        while (leftPointer < left.length && rightPointer < right.length) { // merge until either left/right is fully copied
-            if (left[leftPointer] <= right[rightPointer]) {
-                merged[mergedPointer] = left[leftPointer];
-                leftPointer++;
+        int leftPointer = lo;
+        int rightPointer = mid;
+        int mergedPointer = out;
+        int leftWins = 0;
+        int rightWins = 0;
+        int comparisons = 1; // the check above
+        while (leftPointer < mid && rightPointer < hi) {
+            comparisons++;
+            if (src[rightPointer] < src[leftPointer]) {
+                dst[mergedPointer++] = src[rightPointer++];
+                leftWins = 0;
+                if (++rightWins >= MERGE_MIN_GALLOP && rightPointer < hi) { // copy all right elements < next left one at once
+                    int end = gallop(src, rightPointer, hi, src[leftPointer], false);
+                    System.arraycopy(src, rightPointer, dst, mergedPointer, end - rightPointer);
+                    mergedPointer += end - rightPointer;
+                    rightPointer = end;
+                    rightWins = 0;
+                }
             } else {
-                merged[mergedPointer] = right[rightPointer];
-                rightPointer++;
+                dst[mergedPointer++] = src[leftPointer++];
+                rightWins = 0;
+                if (++leftWins >= MERGE_MIN_GALLOP && leftPointer < mid) { // copy all left elements <= next right one at once
+                    int end = gallop(src, leftPointer, mid, src[rightPointer], true);
+                    System.arraycopy(src, leftPointer, dst, mergedPointer, end - leftPointer);
+                    mergedPointer += end - leftPointer;
+                    leftPointer = end;
+                    leftWins = 0;
+                }
             }
-            mergedPointer++;
         }
+        // copy remaining contents of the side that isn't used up yet
+        System.arraycopy(src, leftPointer, dst, mergedPointer, mid - leftPointer);
+        System.arraycopy(src, rightPointer, dst, mergedPointer, hi - rightPointer);
+        if (Metrics.ENABLED) MERGE_METRICS.count(Metrics.Event.COMPARISONS, comparisons);
+    }
 
-        while (leftPointer < left.length) { // copy remaining contents of "bigger" array
-            merged[mergedPointer] = left[leftPointer];   
-            leftPointer++;
-            mergedPointer++;
-        }
-        while (rightPointer < right.length) {
-            merged[mergedPointer] = right[rightPointer];   
-            rightPointer++;
-            mergedPointer++;
+    /**
+     * Merges like merge(), but picks each element with conditional moves instead of jumps.
+     * Returns the number of comparisons, which is one per element before a side runs out.
+     */
+    private static int mergeBranchFree(int[] src, int lo, int mid, int hi, int[] dst, int out) {
+        int leftPointer = lo;
+        int rightPointer = mid;
+        int mergedPointer = out;
+        while (leftPointer < mid && rightPointer < hi) {
+            int left = src[leftPointer];
+            int right = src[rightPointer];
+            boolean takeRight = right < left;
+            dst[mergedPointer++] = takeRight ? right : left;
+            rightPointer += takeRight ? 1 : 0;
+            leftPointer += takeRight ? 0 : 1;
         }
+        System.arraycopy(src, leftPointer, dst, mergedPointer, mid - leftPointer);
+        System.arraycopy(src, rightPointer, dst, mergedPointer + (mid - leftPointer), hi - rightPointer);
+        return mergedPointer - out;
+    }
 
-        return merged;
+    /**
+     * Returns the first index in the sorted range a[from..to-1] whose value is greater than
+     * key (or greater than or equal to key if inclusive is false). Probes 1, 2, 4, ... positions
+     * ahead first, so it's fast when the answer is near from.
+     */
+    private static int gallop(int[] a, int from, int to, int key, boolean inclusive) {
+        int lo = from;
+        int step = 1;
+        int hi = from;
+        int probes = 0;
+        while (hi < to && (inclusive ? a[hi] <= key : a[hi] < key)) {
+            probes++;
+            lo = hi + 1;
+            hi = from + step;
+            step <<= 1;
+        }
+        if (hi < to) probes++; // the probe that stopped it
+        hi = Math.min(hi, to);
+        while (lo < hi) {
+            probes++;
+            int mid = (lo + hi) >>> 1;
+            if (inclusive ? a[mid] <= key : a[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        if (Metrics.ENABLED) MERGE_METRICS.count(Metrics.Event.COMPARISONS, probes);
+        return lo;
     }
 
     public static void quickSort(int[] array, int front, int rear) {
         if (front >= rear) return;
 
-        int pivotPos = front + (int) ((rear - front + 1) * Math.random()); // Pivot strategy: Random
+        int pivotPos = ThreadLocalRandom.current().nextInt(front, rear + 1); // Pivot strategy: Random
         int pivot = array[pivotPos];
         array[pivotPos] = array[rear]; // Swap pivot to rear
         array[rear] = pivot;
 
         int leftPointer = front;
         int rightPointer = rear-1;
+        long comparisons = 0;
+        long swaps = 2; // pivot to the rear and back
         do {
             while ((leftPointer < rear) && (array[leftPointer] <= pivot)) {
                 leftPointer++;
+                comparisons++;
             }
             while ((rightPointer > front) && (array[rightPointer] > pivot)) {
                 rightPointer--;
+                comparisons++;
             }
+            comparisons += 2; // the elements that stopped the scans
             if (leftPointer < rightPointer) {
                 int temp = array[leftPointer];
                 array[leftPointer] = array[rightPointer];
                 array[rightPointer] = temp;
+                swaps++;
             }
         } while (leftPointer < rightPointer);
         array[rear] = array[leftPointer];
         array[leftPointer] = pivot;
+        if (Metrics.ENABLED) {
+            QUICK_METRICS.count(Metrics.Event.COMPARISONS, comparisons);
+            QUICK_METRICS.count(Metrics.Event.SWAPS, swaps);
+        }
 
         quickSort(array, front, leftPointer-1);
         quickSort(array, leftPointer+1, rear);
     }
 
+    // Ranges up to this size are finished with insertion sort.
+    private static final int INTRO_INSERTION_CUTOFF = 24;
+    // Ranges above this size use Tukey's ninther instead of median-of-3 as pivot.
+    private static final int INTRO_NINTHER_THRESHOLD = 128;
+
+    public static void introSort(int[] array) {
+        introSort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts array[from..to-1] with introsort: quicksort with a median-of-3 or ninther
+     * pivot and a three-way (Bentley-McIlroy) partition, so runs of equal keys are
+     * finished in one pass. It recurses only into the smaller side, which keeps the
+     * stack at O(log n), and switches to heapsort once the depth exceeds 2 log n, so
+     * the worst case is O(n log n).
+     */
+    public static void introSort(int[] array, int from, int to) {
+        checkRange(array.length, from, to);
+        introSort(array, from, to - 1, 2 * (31 - Integer.numberOfLeadingZeros(Math.max(1, to - from))));
+    }
+
+    // Works on the inclusive range array[lo..hi].
+    private static void introSort(int[] array, int lo, int hi, int depthLimit) {
+        while (hi - lo + 1 > INTRO_INSERTION_CUTOFF) {
+            if (depthLimit-- == 0) {
+                heapSort(array, lo, hi + 1, INTRO_METRICS);
+                return;
+            }
+            swap(array, lo, pivotIndex(array, lo, hi));
+            int pivot = array[lo];
+
+            // Bentley-McIlroy: keys equal to the pivot are parked at both ends while partitioning ...
+            int i = lo;
+            int j = hi + 1;
+            int p = lo;
+            int q = hi + 1;
+            long comparisons = 0;
+            long swaps = 2; // the pivot to lo and back into the middle
+            while (true) {
+                int iFrom = i;
+                int jFrom = j;
+                while (array[++i] < pivot) {
+                    if (i == hi) break;
+                }
+                while (pivot < array[--j]) {
+                    if (j == lo) break;
+                }
+                comparisons += (i - iFrom) + (jFrom - j); // one per step of the scans
+                if (i == j) comparisons++;
+                if (i == j && array[i] == pivot) swap(array, ++p, i);
+                if (i >= j) break;
+                swap(array, i, j);
+                swaps++;
+                comparisons += 2;
+                if (array[i] == pivot) swap(array, ++p, i);
+                if (array[j] == pivot) swap(array, --q, j);
+            }
+            // ... and then swapped into the middle: array[lo..j] < pivot == array[j+1..i-1] < array[i..hi]
+            i = j + 1;
+            for (int k = lo; k <= p; k++) swap(array, k, j--);
+            for (int k = hi; k >= q; k--) swap(array, k, i++);
+            swaps += 2L * ((p - lo) + (hi + 1 - q)); // each parked key was swapped out and back
+            if (Metrics.ENABLED) {
+                INTRO_METRICS.count(Metrics.Event.COMPARISONS, comparisons);
+                INTRO_METRICS.count(Metrics.Event.SWAPS, swaps);
+            }
+
+            if (j - lo < hi - i) {
+                introSort(array, lo, j, depthLimit);
+                lo = i;
+            } else {
+                introSort(array, i, hi, depthLimit);
+                hi = j;
+            }
+        }
+        insertionSort(array, lo, hi + 1, INTRO_METRICS);
+    }
+
+    private static int pivotIndex(int[] array, int lo, int hi) {
+        int mid = lo + (hi - lo) / 2;
+        if (hi - lo + 1 <= INTRO_NINTHER_THRESHOLD) return median3(array, lo, mid, hi);
+        int eighth = (hi - lo + 1) / 8;
+        return median3(array,
+                median3(array, lo, lo + eighth, lo + 2*eighth),
+                median3(array, mid - eighth, mid, mid + eighth),
+                median3(array, hi - 2*eighth, hi - eighth, hi));
+    }
+
+    private static int median3(int[] array, int i, int j, int k) {
+        int median;
+        int comparisons = 2;
+        if (array[i] < array[j]) {
+            if (array[j] < array[k]) {
+                median = j;
+            } else {
+                median = array[i] < array[k] ? k : i;
+                comparisons++;
+            }
+        } else if (array[k] < array[j]) {
+            median = j;
+        } else {
+            median = array[k] < array[i] ? k : i;
+            comparisons++;
+        }
+        if (Metrics.ENABLED) INTRO_METRICS.count(Metrics.Event.COMPARISONS, comparisons);
+        return median;
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    public static void heapSort(int[] array) {
+        heapSort(array, 0, array.length);
+    }
+
+    /** Sorts array[from..to-1] with a binary max-heap built in place. */
+    public static void heapSort(int[] array, int from, int to) {
+        checkRange(array.length, from, to);
+        heapSort(array, from, to, HEAP_METRICS);
+    }
+
+    /** Sorts array[from..to-1] and counts its comparisons, moves and swaps in the given scope. */
+    private static void heapSort(int[] array, int from, int to, Metrics.Scope metrics) {
+        int n = to - from;
+        for (int i = n/2 - 1; i >= 0; i--) {
+            heapSiftDown(array, from, i, n, metrics);
+        }
+        for (int size = n - 1; size > 0; size--) {
+            swap(array, from, from + size);
+            heapSiftDown(array, from, 0, size, metrics);
+        }
+        if (Metrics.ENABLED) metrics.count(Metrics.Event.SWAPS, Math.max(0, n - 1));
+    }
+
+    private static void heapSiftDown(int[] array, int offset, int i, int size, Metrics.Scope metrics) {
+        int value = array[offset + i];
+        int comparisons = 0;
+        int moves = 0;
+        while (true) {
+            int child = 2*i + 1;
+            if (child >= size) break;
+            if (child + 1 < size) {
+                comparisons++;
+                if (array[offset + child + 1] > array[offset + child]) child++;
+            }
+            comparisons++;
+            if (array[offset + child] <= value) break;
+            array[offset + i] = array[offset + child];
+            moves++;
+            i = child;
+        }
+        array[offset + i] = value;
+        if (Metrics.ENABLED) {
+            metrics.count(Metrics.Event.COMPARISONS, comparisons);
+            metrics.count(Metrics.Event.MOVES, moves + 1);
+        }
+    }
+
+    /** Sorts the array with a parallel merge sort on a temporary pool with the given number of threads. */
+    public static void parallelSort(int[] array, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ParallelSorting.mergeSort(array, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Sorts the array with a parallel merge sort on the given pool. */
+    public static void parallelSort(int[] array, ForkJoinPool pool) {
+        ParallelSorting.mergeSort(array, pool);
+    }
+
+    /** Sorts the array with a parallel LSD radix sort on the given pool. */
+    public static void parallelRadixSort(int[] array, ForkJoinPool pool) {
+        ParallelSorting.radixSort(array, pool);
+    }
+
+    /** Picks the digit width: small digits keep the counts in L1 for small arrays, wide digits save passes on big ones. */
+    private static int radixBits(int length) {
+        if (length < (1 << 12)) return 8;
+        if (length < (1 << 22)) return 11;
+        return 16;
+    }
+
     public static void radixSort(int[] array) {
-        
+        radixSort(array, radixBits(array.length), null);
+    }
+
+    /**
+     * LSD radix sort with digits of the given width (1-16 bits, typically 8, 11 or 16).
+     * The scratch buffer may be null; pass one of at least array.length to reuse it across calls.
+     */
+    public static void radixSort(int[] array, int bitsPerDigit, int[] scratch) {
+        radixSort(array, 0, array.length, bitsPerDigit, scratch);
+    }
+
+    /** Sorts array[from..to-1] like radixSort(array, bitsPerDigit, scratch); scratch needs to - from elements. */
+    public static void radixSort(int[] array, int from, int to, int bitsPerDigit, int[] scratch) {
+        checkRange(array.length, from, to);
+        if (bitsPerDigit < 1 || bitsPerDigit > 16) throw new IllegalArgumentException("digit width must be 1-16 bits");
+        int n = to - from;
+        if (n < 2) return;
+        if (scratch == null || scratch.length < n) {
+            scratch = new int[n];
+            if (Metrics.ENABLED) RADIX_METRICS.count(Metrics.Event.ALLOCATIONS);
+        }
+
+        int radix = 1 << bitsPerDigit;
+        int mask = radix - 1;
+        int passes = (32 + bitsPerDigit - 1) / bitsPerDigit;
+
+        // Flipping the sign bit makes negative numbers sort before positive ones as unsigned values.
+        int[][] counts = new int[passes][radix];
+        for (int i = from; i < to; i++) {
+            int key = array[i] ^ Integer.MIN_VALUE;
+            for (int pass = 0; pass < passes; pass++) {
+                counts[pass][(key >>> (pass * bitsPerDigit)) & mask]++;
+            }
+        }
+
+        // Element i of the range is src[srcOffset + i] (dst alike): array starts at from, scratch at 0.
+        int[] src = array;
+        int[] dst = scratch;
+        int srcOffset = from;
+        int dstOffset = 0;
+        for (int pass = 0; pass < passes; pass++) {
+            int[] count = counts[pass];
+            int shift = pass * bitsPerDigit;
+            if (count[((src[srcOffset] ^ Integer.MIN_VALUE) >>> shift) & mask] == n) continue; // all keys share this digit
+
+            int sum = 0;
+            for (int digit = 0; digit < radix; digit++) { // turn counts into start positions
+                int c = count[digit];
+                count[digit] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int value = src[srcOffset + i];
+                dst[dstOffset + count[((value ^ Integer.MIN_VALUE) >>> shift) & mask]++] = value;
+            }
+            int[] tmp = src;
+            src = dst;
+            dst = tmp;
+            int tmpOffset = srcOffset;
+            srcOffset = dstOffset;
+            dstOffset = tmpOffset;
+        }
+        if (src != array) System.arraycopy(src, srcOffset, array, from, n);
     }
 
+    // Below this many elements, a bucket is finished with insertion sort.
+    private static final int BUCKET_INSERTION_CUTOFF = 32;
+    // Average number of elements per bucket the bucket count aims for.
+    private static final int BUCKET_TARGET_SIZE = 8;
+
     public static void bucketSort(int[] array) {
-        
+        if (array.length < 2) return;
+        bucketSort(array, 0, array.length, new int[array.length]);
     }
 
+    /**
+     * Distributes array[from..to-1] over buckets of equal value range and sorts each bucket.
+     * The number of buckets follows the element count and the value range, and buckets
+     * that end up overfull because of a skewed distribution are bucket-sorted again
+     * over their own (narrower) range.
+     */
+    private static void bucketSort(int[] array, int from, int to, int[] scratch) {
+        int n = to - from;
+        if (n <= BUCKET_INSERTION_CUTOFF) {
+            insertionSort(array, from, to);
+            return;
+        }
+        int min = array[from];
+        int max = array[from];
+        for (int i = from+1; i < to; i++) {
+            if (array[i] < min) min = array[i];
+            if (array[i] > max) max = array[i];
+        }
+        if (min == max) return;
+
+        long range = (long) max - min + 1;
+        int numBuckets = (int) Math.min(Math.max(2, n / BUCKET_TARGET_SIZE), range);
+        int[] starts = new int[numBuckets + 1];
+        for (int i = from; i < to; i++) {
+            starts[bucketOf(array[i], min, range, numBuckets) + 1]++;
+        }
+        for (int b = 0; b < numBuckets; b++) {
+            starts[b+1] += starts[b];
+        }
+        int[] next = Arrays.copyOf(starts, numBuckets);
+        for (int i = from; i < to; i++) {
+            int value = array[i];
+            scratch[from + next[bucketOf(value, min, range, numBuckets)]++] = value;
+        }
+        System.arraycopy(scratch, from, array, from, n);
+
+        for (int b = 0; b < numBuckets; b++) {
+            int bucketSize = starts[b+1] - starts[b];
+            if (bucketSize > 1) bucketSort(array, from + starts[b], from + starts[b+1], scratch);
+        }
+    }
+
+    private static int bucketOf(int value, int min, long range, int numBuckets) {
+        return (int) (((long) value - min) * numBuckets / range);
+    }
+
+    // Counting sort is used while its count array stays within this multiple of the input size.
+    private static final int COUNTING_MAX_RANGE_FACTOR = 4;
+
+    /**
+     * Counts occurrences of every value between the minimum and maximum of the array.
+     * If that range is much larger than the array, counting would cost more than it
+     * saves, so the array is radix sorted instead.
+     */
     public static void countingSort(int[] array) {
+        if (array.length < 2) return;
+        int min = array[0];
+        int max = array[0];
+        for (int value : array) {
+            if (value < min) min = value;
+            if (value > max) max = value;
+        }
+        long range = (long) max - min + 1;
+        if (range > (long) COUNTING_MAX_RANGE_FACTOR * array.length + 256) {
+            radixSort(array);
+            return;
+        }
+
+        int[] counts = new int[(int) range];
+        for (int value : array) {
+            counts[value - min]++;
+        }
+        int pos = 0;
+        for (int i = 0; i < counts.length; i++) {
+            int value = min + i;
+            for (int c = counts[i]; c > 0; c--) {
+                array[pos++] = value;
+            }
+        }
+    }
+
+    private static void checkRange(int length, int from, int to) {
+        if (from < 0 || to > length || from > to) throw new IndexOutOfBoundsException();
+    }
+
+    public static void radixSort(long[] array) {
+        radixSort(array, null);
+    }
+
+    /**
+     * LSD radix sort for longs with 16-bit digits (8-bit for small arrays), skipping
+     * passes where all keys share a digit. The scratch buffer may be null.
+     */
+    public static void radixSort(long[] array, long[] scratch) {
+        radixSort(array, 0, array.length, scratch);
+    }
+
+    /** Sorts array[from..to-1] like radixSort(array, scratch); scratch needs to - from elements. */
+    public static void radixSort(long[] array, int from, int to, long[] scratch) {
+        checkRange(array.length, from, to);
+        int n = to - from;
+        if (n < 2) return;
+        if (scratch == null || scratch.length < n) {
+            scratch = new long[n];
+            if (Metrics.ENABLED) RADIX_METRICS.count(Metrics.Event.ALLOCATIONS);
+        }
+        int bits = n < (1 << 16) ? 8 : 16;
+        int radix = 1 << bits;
+        int mask = radix - 1;
+        int passes = 64 / bits;
+
+        int[][] counts = new int[passes][radix];
+        for (int i = from; i < to; i++) {
+            long key = array[i] ^ Long.MIN_VALUE;
+            for (int pass = 0; pass < passes; pass++) {
+                counts[pass][(int) (key >>> (pass * bits)) & mask]++;
+            }
+        }
+
+        long[] src = array;
+        long[] dst = scratch;
+        int srcOffset = from;
+        int dstOffset = 0;
+        for (int pass = 0; pass < passes; pass++) {
+            int[] count = counts[pass];
+            int shift = pass * bits;
+            if (count[(int) ((src[srcOffset] ^ Long.MIN_VALUE) >>> shift) & mask] == n) continue;
+            toStartPositions(count);
+            for (int i = 0; i < n; i++) {
+                long value = src[srcOffset + i];
+                dst[dstOffset + count[(int) ((value ^ Long.MIN_VALUE) >>> shift) & mask]++] = value;
+            }
+            long[] tmp = src;
+            src = dst;
+            dst = tmp;
+            int tmpOffset = srcOffset;
+            srcOffset = dstOffset;
+            dstOffset = tmpOffset;
+        }
+        if (src != array) System.arraycopy(src, srcOffset, array, from, n);
+    }
+
+    private static void toStartPositions(int[] count) {
+        int sum = 0;
+        for (int digit = 0; digit < count.length; digit++) {
+            int c = count[digit];
+            count[digit] = sum;
+            sum += c;
+        }
+    }
+
+    /**
+     * Maps a double to a long whose unsigned order is the order of Arrays.sort(double[]):
+     * negative numbers have all bits flipped, positive ones only the sign bit, -0.0 comes
+     * before 0.0 and NaN after positive infinity.
+     */
+    private static long sortableBits(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+    }
+
+    /** LSD radix sort for doubles, ordered like Arrays.sort(double[]). The scratch buffer may be null. */
+    public static void radixSort(double[] array, double[] scratch) {
+        int n = array.length;
+        if (n < 2) return;
+        if (scratch == null || scratch.length < n) scratch = new double[n];
+        int bits = n < (1 << 16) ? 8 : 16;
+        int radix = 1 << bits;
+        int mask = radix - 1;
+        int passes = 64 / bits;
+
+        int[][] counts = new int[passes][radix];
+        for (double value : array) {
+            long key = sortableBits(value);
+            for (int pass = 0; pass < passes; pass++) {
+                counts[pass][(int) (key >>> (pass * bits)) & mask]++;
+            }
+        }
+
+        double[] from = array;
+        double[] to = scratch;
+        for (int pass = 0; pass < passes; pass++) {
+            int[] count = counts[pass];
+            int shift = pass * bits;
+            if (count[(int) (sortableBits(from[0]) >>> shift) & mask] == n) continue;
+            toStartPositions(count);
+            for (int i = 0; i < n; i++) {
+                double value = from[i];
+                to[count[(int) (sortableBits(value) >>> shift) & mask]++] = value;
+            }
+            double[] tmp = from;
+            from = to;
+            to = tmp;
+        }
+        if (from != array) System.arraycopy(from, 0, array, 0, n);
+    }
+
+    public static void radixSort(double[] array) {
+        radixSort(array, null);
+    }
+
+    /**
+     * Sorts the keys and applies the same permutation to the payload, so payload[i]
+     * stays attached to keys[i]. Stable: entries with equal keys keep their order.
+     */
+    public static void sortByKey(int[] keys, int[] payload) {
+        if (keys.length != payload.length) throw new IllegalArgumentException("keys and payload differ in length");
+        int n = keys.length;
+        if (n < 2) return;
+        int[] keyScratch = new int[n];
+        int[] payloadScratch = new int[n];
+        int mask = 0xFFFF;
+
+        int[][] counts = new int[2][1 << 16];
+        for (int key : keys) {
+            int flipped = key ^ Integer.MIN_VALUE;
+            counts[0][flipped & mask]++;
+            counts[1][flipped >>> 16]++;
+        }
+
+        int[] keysFrom = keys, keysTo = keyScratch;
+        int[] payloadFrom = payload, payloadTo = payloadScratch;
+        for (int pass = 0; pass < 2; pass++) {
+            int[] count = counts[pass];
+            int shift = 16 * pass;
+            if (count[((keysFrom[0] ^ Integer.MIN_VALUE) >>> shift) & mask] == n) continue;
+            toStartPositions(count);
+            for (int i = 0; i < n; i++) {
+                int pos = count[((keysFrom[i] ^ Integer.MIN_VALUE) >>> shift) & mask]++;
+                keysTo[pos] = keysFrom[i];
+                payloadTo[pos] = payloadFrom[i];
+            }
+            int[] tmp = keysFrom;
+            keysFrom = keysTo;
+            keysTo = tmp;
+            tmp = payloadFrom;
+            payloadFrom = payloadTo;
+            payloadTo = tmp;
+        }
+        if (keysFrom != keys) {
+            System.arraycopy(keysFrom, 0, keys, 0, n);
+            System.arraycopy(payloadFrom, 0, payload, 0, n);
+        }
+    }
+
+    /** Like {@link #sortByKey(int[], int[])} for long keys, e.g. timestamps. */
+    public static void sortByKey(long[] keys, int[] payload) {
+        if (keys.length != payload.length) throw new IllegalArgumentException("keys and payload differ in length");
+        int n = keys.length;
+        if (n < 2) return;
+        long[] keyScratch = new long[n];
+        int[] payloadScratch = new int[n];
+        int mask = 0xFFFF;
+
+        int[][] counts = new int[4][1 << 16];
+        for (long key : keys) {
+            long flipped = key ^ Long.MIN_VALUE;
+            for (int pass = 0; pass < 4; pass++) {
+                counts[pass][(int) (flipped >>> (16 * pass)) & mask]++;
+            }
+        }
+
+        long[] keysFrom = keys, keysTo = keyScratch;
+        int[] payloadFrom = payload, payloadTo = payloadScratch;
+        for (int pass = 0; pass < 4; pass++) {
+            int[] count = counts[pass];
+            int shift = 16 * pass;
+            if (count[(int) ((keysFrom[0] ^ Long.MIN_VALUE) >>> shift) & mask] == n) continue;
+            toStartPositions(count);
+            for (int i = 0; i < n; i++) {
+                int pos = count[(int) ((keysFrom[i] ^ Long.MIN_VALUE) >>> shift) & mask]++;
+                keysTo[pos] = keysFrom[i];
+                payloadTo[pos] = payloadFrom[i];
+            }
+            long[] tmpKeys = keysFrom;
+            keysFrom = keysTo;
+            keysTo = tmpKeys;
+            int[] tmp = payloadFrom;
+            payloadFrom = payloadTo;
+            payloadTo = tmp;
+        }
+        if (keysFrom != keys) {
+            System.arraycopy(keysFrom, 0, keys, 0, n);
+            System.arraycopy(payloadFrom, 0, payload, 0, n);
+        }
+    }
+
+    /**
+     * Returns the stable sorting permutation of the keys: keys[p[0]] <= keys[p[1]] <= ...
+     * The keys themselves are left unchanged.
+     */
+    public static int[] sortIndices(int[] keys) {
+        int[] indices = new int[keys.length];
+        for (int i = 0; i < indices.length; i++) indices[i] = i;
+        sortByKey(keys.clone(), indices);
+        return indices;
+    }
+
+    public static int[] sortIndices(long[] keys) {
+        int[] indices = new int[keys.length];
+        for (int i = 0; i < indices.length; i++) indices[i] = i;
+        sortByKey(keys.clone(), indices);
+        return indices;
+    }
 
+    // Below this size the comparator sorts use insertion sort.
+    private static final int COMPARATOR_INSERTION_CUTOFF = 16;
+
+    /** Stable sort of ints in the order given by the comparator, without boxing. */
+    public static void sort(int[] array, IntComparator comparator) {
+        sort(array, 0, array.length, comparator);
+    }
+
+    public static void sort(int[] array, int from, int to, IntComparator comparator) {
+        checkRange(array.length, from, to);
+        if (to - from < 2) return;
+        int[] aux = Arrays.copyOfRange(array, from, to);
+        mergeSort(aux, 0, array, from, 0, to - from, comparator);
+    }
+
+    /**
+     * Sorts the range lo..hi-1 from src into dst, where position i is src[srcOffset + i]
+     * and dst[dstOffset + i]; both must hold the same elements on entry.
+     */
+    private static void mergeSort(int[] src, int srcOffset, int[] dst, int dstOffset, int lo, int hi, IntComparator comparator) {
+        if (hi - lo <= COMPARATOR_INSERTION_CUTOFF) {
+            for (int i = dstOffset+lo+1; i < dstOffset+hi; i++) {
+                int value = dst[i];
+                int j = i-1;
+                while (j >= dstOffset+lo && comparator.compare(dst[j], value) > 0) {
+                    dst[j+1] = dst[j];
+                    j--;
+                }
+                dst[j+1] = value;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(dst, dstOffset, src, srcOffset, lo, mid, comparator); // the halves end up sorted in src
+        mergeSort(dst, dstOffset, src, srcOffset, mid, hi, comparator);
+        if (comparator.compare(src[srcOffset+mid-1], src[srcOffset+mid]) <= 0) {
+            System.arraycopy(src, srcOffset+lo, dst, dstOffset+lo, hi - lo);
+            return;
+        }
+        int i = srcOffset+lo;
+        int j = srcOffset+mid;
+        int midEnd = srcOffset+mid;
+        int hiEnd = srcOffset+hi;
+        for (int k = dstOffset+lo; k < dstOffset+hi; k++) {
+            if (j >= hiEnd || (i < midEnd && comparator.compare(src[i], src[j]) <= 0)) {
+                dst[k] = src[i++];
+            } else {
+                dst[k] = src[j++];
+            }
+        }
+    }
+
+    /** Stable merge sort of objects in the order given by the comparator. */
+    public static <T> void mergeSort(T[] array, Comparator<? super T> comparator) {
+        mergeSort(array, 0, array.length, comparator);
+    }
+
+    public static <T> void mergeSort(T[] array, int from, int to, Comparator<? super T> comparator) {
+        checkRange(array.length, from, to);
+        if (to - from < 2) return;
+        T[] aux = Arrays.copyOfRange(array, from, to);
+        mergeSort(aux, 0, array, from, 0, to - from, comparator);
+    }
+
+    private static <T> void mergeSort(T[] src, int srcOffset, T[] dst, int dstOffset, int lo, int hi, Comparator<? super T> comparator) {
+        if (hi - lo <= COMPARATOR_INSERTION_CUTOFF) {
+            for (int i = dstOffset+lo+1; i < dstOffset+hi; i++) {
+                T value = dst[i];
+                int j = i-1;
+                while (j >= dstOffset+lo && comparator.compare(dst[j], value) > 0) {
+                    dst[j+1] = dst[j];
+                    j--;
+                }
+                dst[j+1] = value;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(dst, dstOffset, src, srcOffset, lo, mid, comparator);
+        mergeSort(dst, dstOffset, src, srcOffset, mid, hi, comparator);
+        if (comparator.compare(src[srcOffset+mid-1], src[srcOffset+mid]) <= 0) {
+            System.arraycopy(src, srcOffset+lo, dst, dstOffset+lo, hi - lo);
+            return;
+        }
+        int i = srcOffset+lo;
+        int j = srcOffset+mid;
+        int midEnd = srcOffset+mid;
+        int hiEnd = srcOffset+hi;
+        for (int k = dstOffset+lo; k < dstOffset+hi; k++) {
+            if (j >= hiEnd || (i < midEnd && comparator.compare(src[i], src[j]) <= 0)) {
+                dst[k] = src[i++];
+            } else {
+                dst[k] = src[j++];
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Times the sorting algorithms on n keys (default 10^6) from several distributions.
+ * Every run sorts a fresh copy of the same input.
+ *
+ * Usage: {@code java SortingBenchmark [n]}, or {@code java SortingBenchmark patterns [n]}
+ * for the comparison-based sorts on sorted, reversed, all-equal, organ-pipe and random input,
+ * or {@code java SortingBenchmark keys [n]} for the long/double, comparator and key/index sorts
+ * against their boxed java.util counterparts.
+ */
+public class SortingBenchmark {
+
+    interface Sort {
+        void sort(int[] array);
+    }
+
+    static int[] uniform(int n, Random random) {
+        int[] array = new int[n];
+        for (int i = 0; i < n; i++) array[i] = random.nextInt();
+        return array;
+    }
+
+    /** Exponentially distributed keys: most are small, a few are very large, some negative. */
+    static int[] skewed(int n, Random random) {
+        int[] array = new int[n];
+        for (int i = 0; i < n; i++) {
+            double value = -Math.log(1 - random.nextDouble()) * 1000;
+            array[i] = (int) Math.min(Integer.MAX_VALUE, value * value) * (random.nextInt(8) == 0 ? -1 : 1);
+        }
+        return array;
+    }
+
+    static int[] smallRange(int n, Random random) {
+        int[] array = new int[n];
+        for (int i = 0; i < n; i++) array[i] = random.nextInt(256);
+        return array;
+    }
+
+    /** Sorted input where 1% of the elements were swapped with a random partner. */
+    static int[] nearlySorted(int n, Random random) {
+        int[] array = uniform(n, random);
+        Arrays.sort(array);
+        for (int i = 0; i < n / 100; i++) {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            int tmp = array[a];
+            array[a] = array[b];
+            array[b] = tmp;
+        }
+        return array;
+    }
+
+    static void run(String distribution, int[] input, String name, Sort sort) {
+        int[] expected = input.clone();
+        Arrays.sort(expected);
+        int[] array = input.clone();
+        sort.sort(array);
+        if (!Arrays.equals(array, expected)) System.out.println("Error: " + name + " did not sort " + distribution + " input");
+
+        Bench.run(String.format("%-14s %s", distribution, name), 3, 5,
+                () -> System.arraycopy(input, 0, array, 0, input.length),
+                () -> {
+                    sort.sort(array);
+                    return array[array.length / 2];
+                });
+    }
+
+    static void patterns(int n) {
+        Random random = new Random(1l);
+        int[] sorted = new int[n];
+        int[] reversed = new int[n];
+        int[] allEqual = new int[n];
+        int[] organPipe = new int[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = i;
+            reversed[i] = n - i;
+            allEqual[i] = 42;
+            organPipe[i] = Math.min(i, n - i);
+        }
+        String[] patterns = { "sorted", "reversed", "all-equal", "organ-pipe", "random" };
+        int[][] inputs = { sorted, reversed, allEqual, organPipe, uniform(n, random) };
+
+        for (int i = 0; i < inputs.length; i++) {
+            // The two-way partition of quickSort is quadratic (and recurses n deep) on all-equal keys.
+            if (!patterns[i].equals("all-equal")) {
+                run(patterns[i], inputs[i], "quickSort", array -> Sorting.quickSort(array, 0, array.length - 1));
+            }
+            run(patterns[i], inputs[i], "introSort", Sorting::introSort);
+            run(patterns[i], inputs[i], "heapSort", Sorting::heapSort);
+            run(patterns[i], inputs[i], "mergeSort", Sorting::mergeSort);
+            run(patterns[i], inputs[i], "Arrays.sort", Arrays::sort);
+        }
+    }
+
+    static void keys(int n) {
+        Random random = new Random(1l);
+        long[] longs = new long[n];
+        double[] doubles = new double[n];
+        int[] ints = new int[n];
+        for (int i = 0; i < n; i++) {
+            longs[i] = random.nextLong();
+            doubles[i] = random.nextGaussian() * 1e6;
+            ints[i] = random.nextInt();
+        }
+
+        long[] longWork = new long[n];
+        Bench.run("long[]    Sorting.radixSort", 3, 5, () -> System.arraycopy(longs, 0, longWork, 0, n),
+                () -> { Sorting.radixSort(longWork); return longWork[n / 2]; });
+        Bench.run("long[]    Arrays.sort", 3, 5, () -> System.arraycopy(longs, 0, longWork, 0, n),
+                () -> { Arrays.sort(longWork); return longWork[n / 2]; });
+
+        double[] doubleWork = new double[n];
+        Bench.run("double[]  Sorting.radixSort", 3, 5, () -> System.arraycopy(doubles, 0, doubleWork, 0, n),
+                () -> { Sorting.radixSort(doubleWork); return (long) doubleWork[n / 2]; });
+        Bench.run("double[]  Arrays.sort", 3, 5, () -> System.arraycopy(doubles, 0, doubleWork, 0, n),
+                () -> { Arrays.sort(doubleWork); return (long) doubleWork[n / 2]; });
+
+        Bench.run("indices   Sorting.sortIndices(long[])", 3, 5, () -> {},
+                () -> Sorting.sortIndices(longs)[n / 2]);
+        Bench.run("indices   Integer[] + Comparator", 3, 5, () -> {}, () -> {
+            Integer[] indices = new Integer[n];
+            for (int i = 0; i < n; i++) indices[i] = i;
+            Arrays.sort(indices, (a, b) -> Long.compare(longs[a], longs[b]));
+            return indices[n / 2];
+        });
+
+        int[] intWork = new int[n];
+        IntComparator descending = (a, b) -> Integer.compare(b, a);
+        Bench.run("int[]     Sorting.sort(IntComparator)", 3, 5, () -> System.arraycopy(ints, 0, intWork, 0, n),
+                () -> { Sorting.sort(intWork, descending); return intWork[n / 2]; });
+        Bench.run("Integer[] Arrays.sort(Comparator)", 3, 5, () -> {}, () -> {
+            Integer[] boxed = new Integer[n];
+            for (int i = 0; i < n; i++) boxed[i] = ints[i];
+            Arrays.sort(boxed, Comparator.reverseOrder());
+            return boxed[n / 2];
+        });
+
+        Long[] objects = new Long[n];
+        for (int i = 0; i < n; i++) objects[i] = longs[i];
+        Long[] objectWork = new Long[n];
+        Bench.run("Long[]    Sorting.mergeSort(Comparator)", 3, 5, () -> System.arraycopy(objects, 0, objectWork, 0, n),
+                () -> { Sorting.mergeSort(objectWork, Comparator.naturalOrder()); return objectWork[n / 2]; });
+        Bench.run("Long[]    Arrays.sort(Comparator)", 3, 5, () -> System.arraycopy(objects, 0, objectWork, 0, n),
+                () -> { Arrays.sort(objectWork, Comparator.naturalOrder()); return objectWork[n / 2]; });
+    }
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("keys")) {
+            keys(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("patterns")) {
+            patterns(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+            return;
+        }
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(1l);
+        String[] distributions = { "uniform", "skewed", "small-range", "nearly-sorted" };
+        int[][] inputs = { uniform(n, random), skewed(n, random), smallRange(n, random), nearlySorted(n, random) };
+        int[] aux = new int[n];
+
+        for (int i = 0; i < inputs.length; i++) {
+            run(distributions[i], inputs[i], "quickSort", array -> Sorting.quickSort(array, 0, array.length - 1));
+            run(distributions[i], inputs[i], "introSort", Sorting::introSort);
+            run(distributions[i], inputs[i], "mergeSort", Sorting::mergeSort);
+            run(distributions[i], inputs[i], "mergeSort (reused buffer)", array -> Sorting.mergeSort(array, 0, array.length, aux));
+            run(distributions[i], inputs[i], "radixSort", Sorting::radixSort);
+            run(distributions[i], inputs[i], "countingSort", Sorting::countingSort);
+            run(distributions[i], inputs[i], "bucketSort", Sorting::bucketSort);
+            run(distributions[i], inputs[i], "Arrays.sort", Arrays::sort);
+        }
+    }
+}
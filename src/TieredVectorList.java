@@ -0,0 +1,278 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Tiered vector: the elements are split into blocks of blockSize (a power of two
+ * around sqrt(n)), each of them a circular buffer. All blocks but the last are full,
+ * so element pos is at offset pos % blockSize of block pos / blockSize, and get is
+ * O(1) with a shift and a mask.
+ *
+ * An add shifts the rest of its own block by one, then pushes the last element of
+ * every following block to the front of the next one, which in a circular buffer
+ * only moves the start offset. A delete does the same in the other direction. Both
+ * are O(blockSize + n / blockSize) = O(sqrt(n)) wherever they happen, so this suits
+ * edits at scattered positions; {@link GapBufferList} is faster for clustered ones.
+ *
+ * blockSize doubles when there are more than twice as many blocks as elements per
+ * block, and halves when there are fewer than a quarter as many, which rebuilds the
+ * blocks in O(n).
+ */
+public class TieredVectorList implements List {
+    private static final int MIN_BLOCK_SIZE = 16;
+
+    private int shift;
+    private int blockSize;
+    private int mask;
+    private int[][] blocks;
+    private int[] offsets;
+    private int numBlocks;
+    private int numElements;
+
+    public TieredVectorList() {
+        clear();
+    }
+
+    public boolean isEmpty() {
+        return (numElements == 0);
+    }
+
+    public int size() {
+        return numElements;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    private void layout(int blockSize) {
+        this.blockSize = blockSize;
+        this.shift = Integer.numberOfTrailingZeros(blockSize);
+        this.mask = blockSize - 1;
+    }
+
+    /** Number of elements in the last block. */
+    private int lastCount() {
+        return numElements - ((numBlocks - 1) << shift);
+    }
+
+    private void appendBlock() {
+        if (numBlocks == blocks.length) {
+            blocks = Arrays.copyOf(blocks, 2 * blocks.length);
+            offsets = Arrays.copyOf(offsets, blocks.length);
+        }
+        if (blocks[numBlocks] == null) blocks[numBlocks] = new int[blockSize];
+        offsets[numBlocks] = 0;
+        numBlocks++;
+    }
+
+    private void rebuild(int newBlockSize) {
+        load(toArray(), newBlockSize);
+    }
+
+    /** Smallest block size at which n elements don't need more than 2 * blockSize blocks. */
+    private static int blockSizeFor(int n) {
+        int blockSize = MIN_BLOCK_SIZE;
+        while (2L * blockSize * blockSize < n) blockSize *= 2;
+        return blockSize;
+    }
+
+    /** Puts the elements into blocks of the given size, all starting at offset 0. */
+    private void load(int[] elements, int newBlockSize) {
+        layout(newBlockSize);
+        numElements = elements.length;
+        numBlocks = 0;
+        blocks = new int[Math.max(4, (elements.length >> shift) + 1)][];
+        offsets = new int[blocks.length];
+        for (int from = 0; from < elements.length; from += blockSize) {
+            appendBlock();
+            System.arraycopy(elements, from, blocks[numBlocks - 1], 0, Math.min(blockSize, elements.length - from));
+        }
+    }
+
+    public int[] toArray() {
+        int[] elements = new int[numElements];
+        for (int b = 0; b < numBlocks; b++) {
+            int count = b == numBlocks - 1 ? lastCount() : blockSize;
+            int start = offsets[b];
+            int first = Math.min(count, blockSize - start);
+            System.arraycopy(blocks[b], start, elements, b << shift, first);
+            System.arraycopy(blocks[b], 0, elements, (b << shift) + first, count - first);
+        }
+        return elements;
+    }
+
+    public void add(int element) {
+        add(numElements, element);
+    }
+
+    public void add(int pos, int element) {
+        if (pos < 0 || pos > numElements) throw new IndexOutOfBoundsException(pos);
+        if (numBlocks == 0 || lastCount() == blockSize) {
+            if (numBlocks == 2 * blockSize) {
+                rebuild(2 * blockSize);
+                if (lastCount() == blockSize) appendBlock();
+            } else {
+                appendBlock();
+            }
+        }
+        int b = pos >> shift;
+        int last = numBlocks - 1;
+        int carry = insert(b, pos & mask, element, b == last ? lastCount() : blockSize);
+        for (int k = b + 1; k <= last; k++) {
+            // push the carried element to the front, popping this block's last one if full
+            int[] block = blocks[k];
+            int full = k < last ? blockSize : lastCount();
+            int next = block[(offsets[k] + blockSize - 1) & mask];
+            offsets[k] = (offsets[k] - 1) & mask;
+            block[offsets[k]] = carry;
+            if (full < blockSize) break;
+            carry = next;
+        }
+        numElements++;
+    }
+
+    /**
+     * Inserts into a block that holds count elements, shifting the shorter side. If
+     * the block is full, its last element drops out and is returned.
+     */
+    private int insert(int b, int i, int element, int count) {
+        int[] block = blocks[b];
+        int offset = offsets[b];
+        int dropped = 0;
+        if (count == blockSize) {
+            dropped = block[(offset + blockSize - 1) & mask];
+            count--;
+        }
+        if (i < count / 2) {
+            offset = (offset - 1) & mask;
+            for (int j = 0; j < i; j++) block[(offset + j) & mask] = block[(offset + j + 1) & mask];
+            offsets[b] = offset;
+        } else {
+            for (int j = count; j > i; j--) block[(offset + j) & mask] = block[(offset + j - 1) & mask];
+        }
+        block[(offset + i) & mask] = element;
+        return dropped;
+    }
+
+    /** Inserts all elements before pos; many of them are inserted by one rebuild in O(n). */
+    public void addAll(int pos, int[] elements) {
+        if (pos < 0 || pos > numElements) throw new IndexOutOfBoundsException(pos);
+        if (elements.length < blockSize) {
+            for (int i = 0; i < elements.length; i++) add(pos + i, elements[i]);
+            return;
+        }
+        int[] current = toArray();
+        int[] merged = new int[current.length + elements.length];
+        System.arraycopy(current, 0, merged, 0, pos);
+        System.arraycopy(elements, 0, merged, pos, elements.length);
+        System.arraycopy(current, pos, merged, pos + elements.length, current.length - pos);
+        load(merged, blockSizeFor(merged.length));
+    }
+
+    /** Filters all elements in one pass and rebuilds the blocks, instead of deleting one by one. */
+    public int removeIf(IntPredicate filter) {
+        int[] elements = toArray();
+        int kept = 0;
+        for (int element : elements) {
+            if (!filter.test(element)) elements[kept++] = element;
+        }
+        int removed = elements.length - kept;
+        if (removed > 0) load(Arrays.copyOf(elements, kept), blockSizeFor(kept));
+        return removed;
+    }
+
+    public void delete(int pos) {
+        if (pos < 0 || pos >= numElements) throw new IndexOutOfBoundsException(pos);
+        int b = pos >> shift;
+        int last = numBlocks - 1;
+        int count = b == last ? lastCount() : blockSize;
+        int[] block = blocks[b];
+        int offset = offsets[b];
+        int i = pos & mask;
+        if (i < count / 2) {
+            for (int j = i; j > 0; j--) block[(offset + j) & mask] = block[(offset + j - 1) & mask];
+            offsets[b] = (offset + 1) & mask;
+        } else {
+            for (int j = i; j < count - 1; j++) block[(offset + j) & mask] = block[(offset + j + 1) & mask];
+        }
+        for (int k = b; k < last; k++) {
+            // the first element of the next block fills the hole at the end of this one
+            int[] next = blocks[k + 1];
+            blocks[k][(offsets[k] + blockSize - 1) & mask] = next[offsets[k + 1]];
+            offsets[k + 1] = (offsets[k + 1] + 1) & mask;
+        }
+        numElements--;
+        if (lastCount() == 0) numBlocks--;
+        if (blockSize > MIN_BLOCK_SIZE && numBlocks < blockSize / 4) rebuild(blockSize / 2);
+    }
+
+    public int get(int pos) {
+        if (pos < 0 || pos >= numElements) throw new IndexOutOfBoundsException(pos);
+        int b = pos >> shift;
+        return blocks[b][(offsets[b] + pos) & mask];
+    }
+
+    public void set(int pos, int element) {
+        if (pos < 0 || pos >= numElements) throw new IndexOutOfBoundsException(pos);
+        int b = pos >> shift;
+        blocks[b][(offsets[b] + pos) & mask] = element;
+    }
+
+    public void clear() {
+        layout(MIN_BLOCK_SIZE);
+        blocks = new int[4][];
+        offsets = new int[4];
+        numBlocks = 0;
+        numElements = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int b = 0; b < numBlocks; b++) {
+            int count = b == numBlocks - 1 ? lastCount() : blockSize;
+            int[] block = blocks[b];
+            int offset = offsets[b];
+            for (int j = 0; j < count; j++) action.accept(block[(offset + j) & mask]);
+        }
+    }
+
+    public ListIterator listIterator(int pos) {
+        if (pos < 0 || pos > numElements) throw new IndexOutOfBoundsException(pos);
+        return new ListIterator() {
+            private int cursor = pos;
+            private int lastReturned = -1;
+
+            public boolean hasNext() {
+                return cursor < numElements;
+            }
+
+            public int nextInt() {
+                if (cursor >= numElements) throw new NoSuchElementException();
+                lastReturned = cursor++;
+                return get(lastReturned);
+            }
+
+            public int nextIndex() {
+                return cursor;
+            }
+
+            public void add(int element) {
+                TieredVectorList.this.add(cursor++, element);
+                lastReturned = -1;
+            }
+
+            public void remove() {
+                if (lastReturned < 0) throw new IllegalStateException();
+                delete(lastReturned);
+                cursor = lastReturned;
+                lastReturned = -1;
+            }
+
+            public void set(int element) {
+                if (lastReturned < 0) throw new IllegalStateException();
+                TieredVectorList.this.set(lastReturned, element);
+            }
+        };
+    }
+}
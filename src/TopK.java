@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps the k smallest elements of a stream of any length in O(k) memory.
+ *
+ * The kept elements are in a {@link DaryHeap} with the order reversed, so its
+ * minimum is the largest kept element. Once k elements are kept, an element that
+ * is not smaller than that one is rejected with a single comparison and without
+ * touching the heap; a smaller one takes its place with replaceMin. A stream of n
+ * elements takes O(n log k) time in the worst case (a descending stream), but in
+ * random order only O(k log(n / k)) elements are expected to get into the heap, so
+ * the rejections dominate.
+ *
+ * For the k largest elements, pass a reversed comparator. {@link Ints} does the
+ * same for primitive ints without boxing them.
+ *
+ * @param <T> Type of the elements.
+ */
+public class TopK<T extends Comparable<T>> {
+    private static final int DEFAULT_D = 4;
+
+    private final int k;
+    private final Comparator<? super T> order;
+    private final DaryHeap<T> heap;
+    // The largest kept element, that is the heap's minimum.
+    private T max;
+    private long rejected;
+
+    public TopK(int k) {
+        this(k, DEFAULT_D, Comparator.naturalOrder());
+    }
+
+    public TopK(int k, int d, Comparator<? super T> order) {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1");
+        this.k = k;
+        this.order = order;
+        this.heap = new DaryHeap<>(d, (a, b) -> order.compare(b, a));
+    }
+
+    /** Keeps element if it is among the k smallest so far; returns whether it was kept. */
+    public boolean offer(T element) {
+        if (heap.size() < k) {
+            heap.add(element);
+        } else if (order.compare(element, max) >= 0) {
+            rejected++;
+            return false;
+        } else {
+            heap.replaceMin(element);
+        }
+        max = heap.min();
+        return true;
+    }
+
+    /** The largest kept element, which the next one has to beat once k are kept, or null. */
+    public T max() {
+        return max;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /** Number of offered elements that were rejected without touching the heap. */
+    public long getNumberOfRejected() {
+        return rejected;
+    }
+
+    /** Removes the kept elements and returns them in ascending order. */
+    public List<T> drainSorted() {
+        List<T> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) result.add(heap.deleteMin());
+        Collections.reverse(result);
+        max = null;
+        return result;
+    }
+
+    /**
+     * The k smallest of a stream of ints. The heap is an {@link IntDaryHeap} of the
+     * complements ~x: complementing reverses the order of all ints, so its minimum
+     * is the complement of the largest kept element.
+     */
+    public static class Ints {
+        private final int k;
+        private final IntDaryHeap heap;
+        private int max;
+        private long rejected;
+
+        public Ints(int k) {
+            this(k, DEFAULT_D);
+        }
+
+        public Ints(int k, int d) {
+            if (k < 1) throw new IllegalArgumentException("k must be at least 1");
+            this.k = k;
+            this.heap = new IntDaryHeap(d, k);
+        }
+
+        public boolean offer(int element) {
+            if (heap.size() < k) {
+                heap.add(~element);
+            } else if (element >= max) {
+                rejected++;
+                return false;
+            } else {
+                heap.replaceMin(~element);
+            }
+            max = ~heap.min();
+            return true;
+        }
+
+        /** The largest kept element; throws NoSuchElementException if none is kept. */
+        public int max() {
+            return ~heap.min();
+        }
+
+        public int size() {
+            return heap.size();
+        }
+
+        public int getK() {
+            return k;
+        }
+
+        public long getNumberOfRejected() {
+            return rejected;
+        }
+
+        /** Removes the kept elements and returns them in ascending order. */
+        public int[] drainSorted() {
+            int[] result = new int[heap.size()];
+            for (int i = result.length - 1; i >= 0; i--) result[i] = ~heap.deleteMin();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Doubly linked list of int[] chunks. A chunk holds up to nodeCapacity elements, so
+ * the list needs about 4 bytes per element plus one node header per chunk, instead
+ * of a 24-byte node per element like {@link LinkedList}.
+ *
+ * A full chunk splits in half on insert. A chunk that falls below a quarter full on
+ * delete is merged with a neighbour, or takes elements from it, so every chunk but
+ * a single one stays at least a quarter full. Appends fill the last chunk and then
+ * start a new one, so a list built by add(element) is almost completely full.
+ *
+ * Positions are found by walking chunks from the head, the tail or the "finger",
+ * the chunk of the last positional access, whichever is closest. Sequential and
+ * nearby accesses therefore touch only one or two chunks, and a random access
+ * walks at most n / (2 * nodeCapacity / 4) chunks. A nodeCapacity around sqrt(n)
+ * makes that O(sqrt(n)), at the price of shifting that many elements on insert.
+ */
+public class UnrolledLinkedList implements List {
+    private static final Metrics.Scope METRICS = Metrics.scope("UnrolledLinkedList");
+
+    public static final int DEFAULT_NODE_CAPACITY = 128;
+
+    private static final class Node {
+        final int[] elements;
+        int count;
+        Node previous;
+        Node next;
+
+        Node(int capacity) {
+            this.elements = new int[capacity];
+            if (Metrics.ENABLED) METRICS.count(Metrics.Event.ALLOCATIONS);
+        }
+    }
+
+    private final int nodeCapacity;
+    private int numElements;
+    private int numNodes;
+    private Node head;
+    private Node tail;
+
+    // The chunk of the last positional access and the position of its first element.
+    // Every change keeps these valid, or moves the finger to a chunk that is.
+    private Node finger;
+    private int fingerStart;
+
+    public UnrolledLinkedList() {
+        this(DEFAULT_NODE_CAPACITY);
+    }
+
+    public UnrolledLinkedList(int nodeCapacity) {
+        if (nodeCapacity < 4) throw new IllegalArgumentException("nodes must hold at least 4 elements");
+        this.nodeCapacity = nodeCapacity;
+    }
+
+    public boolean isEmpty() {
+        return (numElements == 0);
+    }
+
+    public int size() {
+        return numElements;
+    }
+
+    public int getNodeCapacity() {
+        return nodeCapacity;
+    }
+
+    public int getNumberOfNodes() {
+        return numNodes;
+    }
+
+    /** Bytes of the chunk arrays and nodes, assuming compressed references. */
+    public long getMemoryBytes() {
+        long node = 32; // 12-byte header and four 4-byte fields, padded to 8 bytes
+        long array = 16 + 4L * nodeCapacity;
+        return numNodes * (node + array);
+    }
+
+    /**
+     * Moves the finger to the chunk that holds pos (0 <= pos < size), starting from
+     * whichever of head, tail and finger is closest.
+     */
+    private void locate(int pos) {
+        Node node = head;
+        int start = 0;
+        int distance = pos;
+        if (finger != null && Math.abs(pos - fingerStart) < distance) {
+            node = finger;
+            start = fingerStart;
+            distance = Math.abs(pos - fingerStart);
+        }
+        if (numElements - pos <= distance) {
+            node = tail;
+            start = numElements - tail.count;
+        }
+        int walked = 0;
+        while (pos < start) {
+            node = node.previous;
+            start -= node.count;
+            walked++;
+        }
+        while (pos >= start + node.count) {
+            start += node.count;
+            node = node.next;
+            walked++;
+        }
+        if (Metrics.ENABLED) METRICS.count(Metrics.Event.READS, walked);
+        finger = node;
+        fingerStart = start;
+    }
+
+    private Node linkAfter(Node node, Node previous) {
+        node.previous = previous;
+        if (previous == null) {
+            node.next = head;
+            head = node;
+        } else {
+            node.next = previous.next;
+            previous.next = node;
+        }
+        if (node.next == null) {
+            tail = node;
+        } else {
+            node.next.previous = node;
+        }
+        numNodes++;
+        return node;
+    }
+
+    private void unlink(Node node) {
+        if (node.previous == null) {
+            head = node.next;
+        } else {
+            node.previous.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.previous;
+        } else {
+            node.next.previous = node.previous;
+        }
+        numNodes--;
+    }
+
+    public void add(int element) {
+        if (tail == null || tail.count == nodeCapacity) linkAfter(new Node(nodeCapacity), tail);
+        tail.elements[tail.count++] = element;
+        numElements++;
+    }
+
+    public void add(int pos, int element) {
+        if (pos < 0 || pos > numElements) throw new IndexOutOfBoundsException(pos);
+        if (pos == numElements) {
+            add(element);
+            return;
+        }
+        locate(pos);
+        Node node = finger;
+        int offset = pos - fingerStart;
+        if (node.count == nodeCapacity) {
+            // split: the upper half moves to a new chunk after this one
+            int half = nodeCapacity / 2;
+            Node upper = linkAfter(new Node(nodeCapacity), node);
+            upper.count = node.count - half;
+            System.arraycopy(node.elements, half, upper.elements, 0, upper.count);
+            node.count = half;
+            if (Metrics.ENABLED) METRICS.count(Metrics.Event.MOVES, upper.count);
+            if (offset > half) {
+                node = upper;
+                offset -= half;
+                finger = upper;
+                fingerStart += half;
+            }
+        }
+        System.arraycopy(node.elements, offset, node.elements, offset + 1, node.count - offset);
+        if (Metrics.ENABLED) METRICS.count(Metrics.Event.MOVES, node.count - offset);
+        node.elements[offset] = element;
+        node.count++;
+        numElements++;
+    }
+
+    public void delete(int pos) {
+        if (pos < 0 || pos >= numElements) throw new IndexOutOfBoundsException(pos);
+        locate(pos);
+        Node node = finger;
+        int offset = pos - fingerStart;
+        System.arraycopy(node.elements, offset + 1, node.elements, offset, node.count - offset - 1);
+        if (Metrics.ENABLED) METRICS.count(Metrics.Event.MOVES, node.count - offset - 1);
+        node.count--;
+        numElements--;
+        if (node.count == 0) {
+            unlink(node);
+            finger = null;
+        } else if (node.count < nodeCapacity / 4) {
+            rebalance(node);
+        }
+    }
+
+    /**
+     * Merges an underfull chunk with its next (or, for the tail, previous) neighbour
+     * if both fit into half a chunk, otherwise splits their elements evenly. The
+     * finger ends up on the left one of the two.
+     */
+    private void rebalance(Node node) {
+        Node left = node;
+        int leftStart = fingerStart;
+        if (node.next == null) {
+            if (node.previous == null) return;
+            left = node.previous;
+            leftStart -= left.count;
+        }
+        Node right = left.next;
+        int total = left.count + right.count;
+        if (total <= nodeCapacity / 2) {
+            System.arraycopy(right.elements, 0, left.elements, left.count, right.count);
+            if (Metrics.ENABLED) METRICS.count(Metrics.Event.MOVES, right.count);
+            left.count = total;
+            unlink(right);
+        } else if (left.count < right.count) {
+            int moved = right.count - total / 2;
+            System.arraycopy(right.elements, 0, left.elements, left.count, moved);
+            System.arraycopy(right.elements, moved, right.elements, 0, right.count - moved);
+            if (Metrics.ENABLED) METRICS.count(Metrics.Event.MOVES, right.count);
+            left.count += moved;
+            right.count -= moved;
+        } else {
+            int moved = left.count - total / 2;
+            System.arraycopy(right.elements, 0, right.elements, moved, right.count);
+            System.arraycopy(left.elements, left.count - moved, right.elements, 0, moved);
+            if (Metrics.ENABLED) METRICS.count(Metrics.Event.MOVES, right.count + moved);
+            left.count -= moved;
+            right.count += moved;
+        }
+        finger = left;
+        fingerStart = leftStart;
+    }
+
+    public int get(int pos) {
+        if (pos < 0 || pos >= numElements) throw new IndexOutOfBoundsException(pos);
+        if (finger == null || pos < fingerStart || pos >= fingerStart + finger.count) locate(pos);
+        return finger.elements[pos - fingerStart];
+    }
+
+    public void clear() {
+        head = null;
+        tail = null;
+        finger = null;
+        numElements = 0;
+        numNodes = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (Node node = head; node != null; node = node.next) {
+            for (int i = 0; i < node.count; i++) action.accept(node.elements[i]);
+        }
+    }
+
+    public int indexOf(int element) {
+        int start = 0;
+        for (Node node = head; node != null; node = node.next) {
+            for (int i = 0; i < node.count; i++) {
+                if (node.elements[i] == element) return start + i;
+            }
+            start += node.count;
+        }
+        return -1;
+    }
+
+    /**
+     * The iterator reads chunks directly. After it changes the list, it finds its
+     * chunk again through the finger, which the change left next to the cursor.
+     */
+    public ListIterator listIterator(int pos) {
+        if (pos < 0 || pos > numElements) throw new IndexOutOfBoundsException(pos);
+        return new ListIterator() {
+            private Node node;
+            private int offset;
+            private int index = pos;
+            private int lastReturned = -1;
+
+            public boolean hasNext() {
+                return index < numElements;
+            }
+
+            public int nextInt() {
+                if (index >= numElements) throw new NoSuchElementException();
+                if (node == null) {
+                    locate(index);
+                    node = finger;
+                    offset = index - fingerStart;
+                } else if (offset == node.count) {
+                    node = node.next;
+                    offset = 0;
+                }
+                lastReturned = index++;
+                return node.elements[offset++];
+            }
+
+            public int nextIndex() {
+                return index;
+            }
+
+            public void add(int element) {
+                UnrolledLinkedList.this.add(index++, element);
+                lastReturned = -1;
+                node = null;
+            }
+
+            public void remove() {
+                if (lastReturned < 0) throw new IllegalStateException();
+                delete(lastReturned);
+                index = lastReturned;
+                lastReturned = -1;
+                node = null;
+            }
+
+            public void set(int element) {
+                if (lastReturned < 0) throw new IllegalStateException();
+                node.elements[offset - 1] = element;
+            }
+        };
+    }
+}